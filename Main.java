@@ -11,7 +11,9 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Observable;
 
 import javax.swing.ButtonGroup;
@@ -32,8 +34,15 @@ import method.GraphDemonstration;
 import method.MinimumSpanningTree;
 import method.tsp.BranchBound;
 import method.tsp.CheapestInsertion;
+import method.tsp.Christofides;
+import method.tsp.DistanceTable;
+import method.tsp.Greedy;
 import method.tsp.HeldKarp;
+import method.tsp.HilbertCurve;
 import method.tsp.ImproveRoutine;
+import method.tsp.IntegerMetric;
+import method.tsp.IteratedLocalSearch;
+import method.tsp.LinKernighan;
 import method.tsp.NearestAddition;
 import method.tsp.NearestInsertion;
 import method.tsp.NearestNeighbor;
@@ -42,9 +51,17 @@ import method.tsp.OneTree;
 import method.tsp.Opt2;
 import method.tsp.Opt3;
 import method.tsp.OrOpt;
+import method.tsp.PortfolioSearch;
+import method.tsp.Savings;
+import method.tsp.SimulatedAnnealing;
+import method.tsp.TimeLimited;
+import method.tsp.TourLength;
 import method.tsp.TspConstruction;
+import method.tsp.TspBase;
 import method.tsp.TspImprovement;
 import model.Node;
+import model.Tour;
+import model.TourFactory;
 
 /**
  * 起動のためのクラスです。
@@ -87,15 +104,31 @@ public class Main {
 		demoType.add(new BranchBound(150, new Opt3()));
 		demoType.add(new BranchBound(200, new Opt3()));
 		demoType.add(new BranchBound(300, new Opt3()));
+		demoType.add(new BranchBound(50, new OrOpt()));
+		demoType.add(new BranchBound(100, new OrOpt()));
+		demoType.add(new BranchBound(100, new ImproveRoutine(true, new Opt2(), new OrOpt())));
+		demoType.add(new BranchBound(50, new Opt2(), IntegerMetric.EUC_2D));
 		demoType.add(new HeldKarp(100));
 		demoType.add(new MinimumSpanningTree());
 		demoType.add(new OneTree());
 		
 		final List<TspConstruction> tspConstruct = new ArrayList<TspConstruction>();
 		tspConstruct.add(new NearestNeighbor());
+		tspConstruct.add(new NearestNeighbor(100, 0));
+		tspConstruct.add(new NearestNeighbor(0, 0));
 		tspConstruct.add(new NearestInsertion());
 		tspConstruct.add(new CheapestInsertion());
 		tspConstruct.add(new NearestAddition());
+		tspConstruct.add(new Greedy());
+		tspConstruct.add(new Savings());
+		tspConstruct.add(new HilbertCurve());
+		tspConstruct.add(new HilbertCurve(new Opt2()));
+		tspConstruct.add(new HilbertCurve(new LinKernighan()));
+		tspConstruct.add(new Christofides());
+		tspConstruct.add(new Christofides(true));
+
+		// 巡回路を配列と2レベル双方向リストのいずれで表すかを、頂点の数の閾値で選びます。
+		final TourFactory factory = new TourFactory();
 
 		final List<TspImprovement> tspImprovement = new ArrayList<TspImprovement>();
 		Opt2 opt2 = new Opt2();
@@ -104,10 +137,17 @@ public class Main {
 		tspImprovement.add(new NoImprovement());
 		tspImprovement.add(opt2);
 		tspImprovement.add(opt3);
+		tspImprovement.add(new Opt2(true));
+		tspImprovement.add(new Opt3(true));
 		tspImprovement.add(optOr);
+		tspImprovement.add(new LinKernighan());
+		tspImprovement.add(new SimulatedAnnealing());
+		tspImprovement.add(new IteratedLocalSearch());
+		tspImprovement.add(new PortfolioSearch());
 		tspImprovement.add(new ImproveRoutine(opt2, optOr));
 		tspImprovement.add(new ImproveRoutine(opt2, opt3));
 		tspImprovement.add(new ImproveRoutine(opt3, optOr));
+		tspImprovement.add(new ImproveRoutine(true, opt2, opt3, optOr));
 
 		final JFrame frame = new JFrame(TITLE);
 
@@ -252,7 +292,9 @@ public class Main {
 						for (int i = 0; i < isConstract.length; i++) {
 							if (isConstract[i]) {
 								TspConstruction constraction = tspConstruct.get(i);
-								final List<Node> route = constraction.method(panel);
+								Node[] nodes = panel.getNodes().toArray(new Node[]{});
+								Tour tour = factory.create(Main.toArray(nodes, constraction.method(panel)));
+								DistanceTable table = TspBase.getCostTable(nodes);
 								for (int j = 0; j < tspImprovement.size(); j++) {
 									if (isImprove[j]) {
 										final TspImprovement tsp = tspImprovement.get(j);
@@ -261,12 +303,20 @@ public class Main {
 										} else {
 											frame.setTitle(TITLE + " - "+ constraction + " + "+ tsp);
 										}
-										panel.set(route);
-										observable.notifyObservers(route);
-										while (tsp.method(route)) {
-											panel.set(route);
+										TourLength length = new TourLength(tour, table);
+										panel.set(tour);
+										panel.setCost(length.get());
+										double delta;
+										while ((delta = tsp.method(tour, table)) < 0) {
+											length.add(delta);
+											panel.set(tour);
+											panel.setCost(length.get());
+											if (tsp instanceof TimeLimited) {
+												break;
+											}
 										}
-										observable.notifyObservers(route);
+										length.resum();
+										panel.setCost(length.get());
 									}
 								}
 								isRun = true;
@@ -438,15 +488,21 @@ public class Main {
 		frame.setVisible(true);
 	}
 
-	public static double getLength(List<Node> route) {
-		double length = 0;
-		if (route.size() > 0) {
-			Node n0 = route.get(route.size() - 1);
-			for (Node node : route) {
-				length += n0.getDistance(node);
-				n0 = node;
-			}
+	/**
+	 * 頂点のリストで表す巡回路を、頂点配列のインデックスの配列に変換します。
+	 * @param nodes 頂点配列
+	 * @param route 巡回路
+	 * @return 訪問順に並べた頂点のインデックス
+	 */
+	private static int[] toArray(Node[] nodes, List<Node> route) {
+		Map<Node, Integer> index = new IdentityHashMap<Node, Integer>();
+		for (int i = 0; i < nodes.length; i++) {
+			index.put(nodes[i], i);
+		}
+		int[] order = new int[route.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = index.get(route.get(i));
 		}
-		return length;
+		return order;
 	}
 }
@@ -15,6 +15,7 @@ import java.util.Observable;
 import javax.swing.JComponent;
 import model.Edge;
 import model.Node;
+import model.Tour;
 
 /**
  * グラフのデモを表示するパネルです。
@@ -352,7 +353,7 @@ public class DemoPanel extends JComponent {
 	}
 
 	/**
-	 * 巡回賂を設定します。
+	 * 巡回路を設定します。
 	 * @param route 巡回賂を示す頂点のリスト
 	 */
 	public void set(List<Node> route) {
@@ -375,6 +376,19 @@ public class DemoPanel extends JComponent {
 		}
 	}
 
+	/**
+	 * 巡回路を設定します。
+	 * @param tour 巡回路、頂点は頂点のリストのインデックスで表します
+	 */
+	public void set(Tour tour) {
+		int[] order = tour.toArray();
+		List<Node> route = new ArrayList<Node>(order.length);
+		for (int node : order) {
+			route.add(this.nodes.get(node));
+		}
+		this.set(route);
+	}
+
 	/**
 	 * 巡回路のコストを設定するメソッド
 	 * @param cost 巡回路のコスト
@@ -1,11 +1,9 @@
 package gui;
 
-import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
 
 import javax.swing.JLabel;
-import model.Node;
 
 public class StatusBar extends JLabel implements Observer {
 	public StatusBar() {
@@ -15,23 +13,15 @@ public class StatusBar extends JLabel implements Observer {
 	
 	private int nodes;
 	private double circuitCost;
-	@SuppressWarnings("unchecked")
+	/**
+	 * 巡回路のコストと頂点数の変更を表示します。
+	 * 巡回路のコストは通知側で更新した値を受け取り、巡回路から求め直しません。
+	 */
 	public void update(Observable o, Object arg) {
 		if (arg instanceof Double) {
 			this.circuitCost = (int) (((Double) arg) * 100 + 0.5) / 100D;
 		} else if (arg instanceof Integer) {
 			this.nodes = (Integer) arg;
-		} else if (arg instanceof List) {
-			List<Node> list = (List<Node>) arg;
-			if (list.size() > 0) {
-				Node n0 = list.get(list.size() - 1);
-				double length = 0;
-				for (Node node : list) {
-					length += n0.getDistance(node);
-					n0 = node;
-				}
-				this.circuitCost = (int) (length * 100 + 0.5) / 100D;
-			}
 		}
 		this.setText();
 	}
@@ -47,6 +47,45 @@ public class MinimumSpanningTree implements GraphDemonstration {
 			panel.set(edges);
 		}
 	}
+	/**
+	 * Primの手法で最小スパニング木を求めます。
+	 * 頂点ごとに木までの最短距離を配列で保持し、O(n^2)で実行します。
+	 * @param nodes 頂点配列
+	 * @return 各頂点の木における親の頂点、根は-1
+	 */
+	public static int[] createTree(Node[] nodes) {
+		int n = nodes.length;
+		int[] parent = new int[n];
+		double[] distance = new double[n];
+		boolean[] close = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			parent[i] = -1;
+			distance[i] = Double.POSITIVE_INFINITY;
+		}
+		if (n > 0) {
+			int index = 0;
+			close[index] = true;
+			for (int count = 1; count < n; count++) {
+				int next = -1;
+				for (int i = 0; i < n; i++) {
+					if (!close[i]) {
+						double d = nodes[index].getDistance(nodes[i]);
+						if (distance[i] > d) {
+							distance[i] = d;
+							parent[i] = index;
+						}
+						if (next < 0 || distance[next] > distance[i]) {
+							next = i;
+						}
+					}
+				}
+				index = next;
+				close[index] = true;
+			}
+		}
+		return parent;
+	}
+
 	class Edge {
 		int s;
 		int t;
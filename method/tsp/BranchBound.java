@@ -2,6 +2,8 @@
 package method.tsp;
 
 import gui.DemoPanel;
+import java.io.File;
+import java.io.IOException;
 import method.GraphDemonstration;
 import model.Node;
 import util.Heap;
@@ -38,20 +40,80 @@ public class BranchBound implements GraphDemonstration {
 		}
 	}
 	
+	/**
+	 * 整数の距離テーブルで下界を切り上げるときに許容する誤差
+	 */
+	private static final double EPSILON = 1e-6;
+
 	/**
 	 * ラグランジュ緩和の試行回数
 	 */
 	private final int limit;
 	private TspImprovement opt;
 
+	/**
+	 * 距離テーブルを単精度で格納する場合はtrue
+	 */
+	private final boolean isFloat;
+
+	/**
+	 * 整数の距離関数、実数の距離を用いる場合はnull
+	 */
+	private final IntegerMetric metric;
+
+	/**
+	 * 距離テーブルを保存するファイル、保存しない場合はnull
+	 */
+	private final File file;
+
 	/**
 	 * コンストラクタ
 	 * @param limit ラグランジュ緩和による再計算回数
 	 * @param opt 改善法
 	 */
 	public BranchBound(int limit, TspImprovement opt) {
+		this(limit, opt, false);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param limit ラグランジュ緩和による再計算回数
+	 * @param opt 改善法
+	 * @param isFloat 距離テーブルを単精度で格納する場合はtrue
+	 */
+	public BranchBound(int limit, TspImprovement opt, boolean isFloat) {
+		this(limit, opt, isFloat, null, null);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 距離を整数で求め、巡回路の長さが整数であることを用いて下界を切り上げて枝刈りします。
+	 * @param limit ラグランジュ緩和による再計算回数
+	 * @param opt 改善法
+	 * @param metric 整数の距離関数
+	 */
+	public BranchBound(int limit, TspImprovement opt, IntegerMetric metric) {
+		this(limit, opt, false, metric, null);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 距離テーブルをファイルに保存し、次回からは保存した距離テーブルをメモリマップで読み込みます。
+	 * @param limit ラグランジュ緩和による再計算回数
+	 * @param opt 改善法
+	 * @param isFloat 距離テーブルを単精度で格納する場合はtrue
+	 * @param file 距離テーブルを保存するファイル
+	 */
+	public BranchBound(int limit, TspImprovement opt, boolean isFloat, File file) {
+		this(limit, opt, isFloat, null, file);
+	}
+
+	private BranchBound(int limit, TspImprovement opt, boolean isFloat, IntegerMetric metric, File file) {
 		this.limit = limit;
 		this.opt = opt;
+		this.isFloat = isFloat;
+		this.metric = metric;
+		this.file = file;
 	}
 	
 	/**
@@ -68,7 +130,7 @@ public class BranchBound implements GraphDemonstration {
 	 * @param percent 進捗
 	 * @return 部分問題の解を返す。ただし部分問題が下界を改善できない場合には、nullを返す。
 	 */
-	public Circuit branch(DemoPanel panel, double[][] table, double[] multipliers, boolean[][] edges, boolean[][] connect, boolean[][] disconnect, double circuitLowerBound, int depth, double percent) {
+	public Circuit branch(DemoPanel panel, DistanceTable table, double[] multipliers, boolean[][] edges, boolean[][] connect, boolean[][] disconnect, double circuitLowerBound, int depth, double percent) {
 		panel.set(connect, disconnect);
 		for (int i = 0; i < multipliers.length; i++) {
 			multipliers[i] = 0;
@@ -86,7 +148,7 @@ public class BranchBound implements GraphDemonstration {
 		do {
 			this.getOneTree(edges, table, multipliers, connect, disconnect);
 			double cost = this.getLowerCost(table, multipliers, edges);
-			if (circuitLowerBound < cost) {
+			if (this.isPruned(table, cost, circuitLowerBound)) {
 				// 実行可能解よりも部分問題の下界が大きいので枝刈りします。
 				System.out.println((int) (percent * 100)+ "% / bound: "+ count + ", depth: "+ depth);
 				return null;
@@ -98,8 +160,8 @@ public class BranchBound implements GraphDemonstration {
 				// 巡回路が求まれば分枝する必要はなく、巡回路を返す。。
 				int[] route = this.compressTableToArray(edges);
 				if (this.opt != null) {
-					while (this.opt.method(route, table));
-					cost = this.getCost(route, table);
+					// 1-treeが巡回路であれば下界は巡回路の長さに等しいので、改善の変化量のみを加えます。
+					cost = this.improve(route, table, cost);
 				}
 				return new Circuit(route, cost);
 			}
@@ -221,20 +283,40 @@ public class BranchBound implements GraphDemonstration {
 	}
 
 	/**
-	 * 距離テーブルを作成します。
+	 * 頂点間の距離を上三角行列として格納した距離テーブルを作成します。
+	 * 上三角行列が最大ヒープの4分の1に収まらなければ、座標から距離を求める距離テーブルを作成します。
+	 * ファイルを指定した場合は、保存した距離テーブルを読み込みます。
 	 * @param nodes 頂点配列
 	 * @return 距離テーブル
 	 */
-	public double[][] createTable(Node[] nodes) {
-		final double[][] table = new double[nodes.length][nodes.length];
-		for (int i = 0; i < nodes.length; i++) {
-			for (int j = i + 1; j < nodes.length; j++) {
-				double distance = nodes[i].getDistance(nodes[j]);
-				table[i][j] = distance;
-				table[j][i] = distance;
+	public DistanceTable createTable(Node[] nodes) {
+		if (this.metric != null) {
+			return new IntegerDistanceTable(nodes, this.metric);
+		}
+		if (this.file != null) {
+			try {
+				return MappedDistanceTable.load(this.file, nodes, this.isFloat);
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
 		}
-		return table;
+		return TspBase.getCostTable(nodes, this.isFloat);
+	}
+
+	/**
+	 * 部分問題を枝刈りできるか判定します。
+	 * 整数の距離テーブルであれば巡回路の長さは整数なので、下界を切り上げた値が実行可能解の長さ以上であれば、
+	 * 部分問題から実行可能解より短い巡回路は得られません。
+	 * @param table 距離テーブル
+	 * @param lowerBound 部分問題の下界
+	 * @param circuitLowerBound 実行可能解の長さ
+	 * @return 枝刈りできればtrue
+	 */
+	private boolean isPruned(DistanceTable table, double lowerBound, double circuitLowerBound) {
+		if (table instanceof IntegerDistanceTable) {
+			return Math.ceil(lowerBound - EPSILON) >= circuitLowerBound;
+		}
+		return circuitLowerBound < lowerBound;
 	}
 
 	public String EdgetoString(boolean[][] edges) {
@@ -278,18 +360,38 @@ public class BranchBound implements GraphDemonstration {
 	 * @param table 距離テーブル
 	 * @return 展開されたテーブル
 	 */
-	private double getCost(int[] route, double[][] table) {
+	private double getCost(int[] route, DistanceTable table) {
 		int previous = route[route.length - 1];
 		int next;
 		double cost = 0;
 		for (int i = 0; i < route.length; i++) {
 			next = route[i];
-			cost += table[previous][next];
+			cost += table.get(previous, next);
 			previous = next;
 		}
 		return cost;
 	}
 	
+	/**
+	 * 改善法を適用できなくなるまで巡回路を改善します。
+	 * 巡回路のコストは改善法が返す変化量で更新するため、巡回路全体を求め直しません。
+	 * @param route 巡回路配列
+	 * @param table 距離テーブル
+	 * @param cost 改善前の巡回路のコスト
+	 * @return 改善後の巡回路のコスト
+	 */
+	private double improve(int[] route, DistanceTable table, double cost) {
+		TourLength length = new TourLength(route, table, cost);
+		double delta;
+		while ((delta = this.opt.method(route, table)) < 0) {
+			length.add(delta);
+			if (this.opt instanceof TimeLimited) {
+				break;
+			}
+		}
+		return length.get();
+	}
+
 	/**
 	 * 巡回路のコストの下界を求めるメソッド
 	 * もし頂点の数と辺の数が同じでなければ下界が求まらないため無限大を返します。
@@ -298,14 +400,30 @@ public class BranchBound implements GraphDemonstration {
 	 * @param edges 辺の接続関係
 	 * @return 巡回路のコストの下界
 	 */
-	private double getLowerCost(double[][] table, double[] multiplier, boolean[][] edges) {
+	private double getLowerCost(DistanceTable table, double[] multiplier, boolean[][] edges) {
 		double cost = 0;
 		int edge = 0;
-		for (int i = 1; i < table.length; i++) {
-			for (int j = 0; j < i; j++) {
-				if (edges[i][j]) {
-					cost += table[i][j] + multiplier[i] + multiplier[j];
-					edge++;
+		if (table instanceof IntegerDistanceTable) {
+			// 辺の長さの和は整数で誤差なく求めます。
+			IntegerDistanceTable integer = (IntegerDistanceTable) table;
+			long length = 0;
+			for (int i = 1; i < table.size(); i++) {
+				for (int j = 0; j < i; j++) {
+					if (edges[i][j]) {
+						length += integer.getInt(i, j);
+						cost += multiplier[i] + multiplier[j];
+						edge++;
+					}
+				}
+			}
+			cost += length;
+		} else {
+			for (int i = 1; i < table.size(); i++) {
+				for (int j = 0; j < i; j++) {
+					if (edges[i][j]) {
+						cost += table.get(i, j) + multiplier[i] + multiplier[j];
+						edge++;
+					}
 				}
 			}
 		}
@@ -331,7 +449,7 @@ public class BranchBound implements GraphDemonstration {
 	 * @param connect 接続制約配列
 	 * @param disconnect 非接続制約配列
 	 */
-	private void getOneTree(final boolean[][] edges, final double[][] table, final double[] multipliers, boolean[][] connect, boolean[][] disconnect) {
+	private void getOneTree(final boolean[][] edges, final DistanceTable table, final double[] multipliers, boolean[][] connect, boolean[][] disconnect) {
 		for (int i = 0; i < edges.length; i++) {
 			for (int j = 0; j < edges.length; j++) {
 				edges[i][j] = false;
@@ -354,7 +472,7 @@ public class BranchBound implements GraphDemonstration {
 //			int a = itr.next();
 			int a = notClose.get(i);
 			if (!disconnect[index][a]) {
-				open.add(new Entry(index, a, connect[index][a] ? Double.NEGATIVE_INFINITY : table[index][a] + multipliers[index] + multipliers[a]));
+				open.add(new Entry(index, a, connect[index][a] ? Double.NEGATIVE_INFINITY : table.get(index, a) + multipliers[index] + multipliers[a]));
 			}
 		}
 		do {
@@ -371,14 +489,14 @@ public class BranchBound implements GraphDemonstration {
 //				int a = itr.next();
 				int a = notClose.get(i);
 				if (!disconnect[index][a]) {
-					open.add(new Entry(index, a, connect[index][a] ? Double.NEGATIVE_INFINITY : table[index][a] + multipliers[index] + multipliers[a]));
+					open.add(new Entry(index, a, connect[index][a] ? Double.NEGATIVE_INFINITY : table.get(index, a) + multipliers[index] + multipliers[a]));
 				}
 			}
 		} while (open.size() > 0);
 		open.clear();
 		for (int i = 0; i < edges.length; i++) {
 			if (s != i && !disconnect[s][i]) {
-				open.add(new Entry(s, i, connect[s][i] ? Double.NEGATIVE_INFINITY : table[s][i] + multipliers[s] + multipliers[i]));
+				open.add(new Entry(s, i, connect[s][i] ? Double.NEGATIVE_INFINITY : table.get(s, i) + multipliers[s] + multipliers[i]));
 			}
 		}
 		edge = open.poll();
@@ -461,14 +579,24 @@ public class BranchBound implements GraphDemonstration {
 		panel.set(new boolean[0][0]);
 		if (nodes.length > 2) {
 			boolean[][] edges = new boolean[nodes.length][nodes.length];
-			double[][] table = createTable(nodes);
+			DistanceTable table = createTable(nodes);
 			double[] multipliers = new double[nodes.length];
 			boolean[][] connect = new boolean[nodes.length][nodes.length];
 			boolean[][] disconnect = new boolean[nodes.length][nodes.length];
 			long start = System.currentTimeMillis();
 			int depth = 0;
 			double percent = 0;
-			Circuit betterCase = branch(panel, table, multipliers, edges, connect, disconnect, Double.POSITIVE_INFINITY, depth, percent);
+			// Christofidesの手法による巡回路を初期の実行可能解とし、上界を与えます。
+			int[] seed = new Christofides().method(nodes);
+			double seedCost = this.getCost(seed, table);
+			if (this.opt != null) {
+				seedCost = this.improve(seed, table, seedCost);
+			}
+			Circuit seedCase = new Circuit(seed, seedCost);
+			Circuit betterCase = branch(panel, table, multipliers, edges, connect, disconnect, seedCase.getCost(), depth, percent);
+			if (betterCase == null || betterCase.getCost() > seedCase.getCost()) {
+				betterCase = seedCase;
+			}
 			long end = System.currentTimeMillis();
 			System.out.println("[" + this.toString() + "]");
 			System.out.println("node: "+ nodes.length);
@@ -482,10 +610,11 @@ public class BranchBound implements GraphDemonstration {
 
 	@Override
 	public String toString() {
+		String name = this.metric != null ? "Branch and Bound (" + this.metric + ")" : "Branch and Bound";
 		if (this.opt != null) {
-			return "Branch and Bound - "+ this.opt + " × "+ this.limit;
+			return name + " - "+ this.opt + " × "+ this.limit;
 		} else {
-			return "Branch and Bound × "+ this.limit;
+			return name + " × "+ this.limit;
 		}
 	}
 	
@@ -0,0 +1,47 @@
+package method.tsp;
+
+
+/**
+ * 距離テーブルから作成した候補近傍リストを保持します。
+ * 同じ距離テーブルに対して繰り返し求める場合は、作成した候補近傍リストを再利用します。
+ * 改善法のインスタンスごとに保持し、複数のスレッドから同時に参照しません。
+ * @author ma38su
+ */
+class CandidateCache {
+
+	/**
+	 * 頂点あたりの候補の数
+	 */
+	private final int k;
+
+	/**
+	 * 候補近傍リストを作成した距離テーブル
+	 */
+	private DistanceTable table;
+
+	/**
+	 * 距離テーブルから作成した候補近傍リスト
+	 */
+	private CandidateList candidates;
+
+	/**
+	 * コンストラクタ
+	 * @param k 頂点あたりの候補の数
+	 */
+	CandidateCache(int k) {
+		this.k = k;
+	}
+
+	/**
+	 * 距離テーブルの候補近傍リストを返します。
+	 * @param table 距離テーブル
+	 * @return 候補近傍リスト
+	 */
+	CandidateList get(DistanceTable table) {
+		if (this.table != table) {
+			this.candidates = CandidateList.create(table, this.k);
+			this.table = table;
+		}
+		return this.candidates;
+	}
+}
@@ -0,0 +1,242 @@
+package method.tsp;
+
+import model.Node;
+import util.KdTree;
+
+/**
+ * 改善法の近傍を制限するための候補近傍リストです。
+ * 各頂点について近い頂点を近い順に保持し、改善法はこのリストに含まれる辺のみを評価します。
+ * 頂点iの候補は、neighbors[offsets[i]]からneighbors[offsets[i + 1] - 1]に格納します。
+ * @author ma38su
+ */
+public class CandidateList {
+
+	/**
+	 * 候補の開始位置
+	 */
+	private final int[] offsets;
+
+	/**
+	 * 候補
+	 */
+	private final int[] neighbors;
+
+	/**
+	 * コンストラクタ
+	 * @param offsets 候補の開始位置
+	 * @param neighbors 候補
+	 */
+	private CandidateList(int[] offsets, int[] neighbors) {
+		this.offsets = offsets;
+		this.neighbors = neighbors;
+	}
+
+	/**
+	 * 頂点の座標からk-d木によってk近傍の候補リストを作成します。
+	 * @param nodes 頂点配列
+	 * @param k 頂点あたりの候補の数
+	 * @return 候補リスト
+	 */
+	public static CandidateList create(Node[] nodes, int k) {
+		return CandidateList.create(nodes, k, 0);
+	}
+
+	/**
+	 * 頂点の座標からk-d木によって候補リストを作成します。
+	 * k近傍に加えて、各象限で最も近いquadrant個の頂点を候補に加えます。
+	 * 頂点が偏って分布している場合でも、離れた頂点群への辺が候補に含まれます。
+	 * @param nodes 頂点配列
+	 * @param k 頂点あたりのk近傍の数
+	 * @param quadrant 象限あたりの候補の数
+	 * @return 候補リスト
+	 */
+	public static CandidateList create(Node[] nodes, int k, int quadrant) {
+		int[] xs = new int[nodes.length];
+		int[] ys = new int[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			xs[i] = nodes[i].getX();
+			ys[i] = nodes[i].getY();
+		}
+		return CandidateList.create(xs, ys, k, quadrant);
+	}
+
+	/**
+	 * 頂点の座標からk-d木によって候補リストを作成します。
+	 * @param xs X座標
+	 * @param ys Y座標
+	 * @param k 頂点あたりのk近傍の数
+	 * @param quadrant 象限あたりの候補の数
+	 * @return 候補リスト
+	 */
+	public static CandidateList create(int[] xs, int[] ys, int k, int quadrant) {
+		int n = xs.length;
+		k = Math.min(k, n - 1);
+		quadrant = Math.min(quadrant, n - 1);
+		KdTree tree = new KdTree(xs, ys);
+		int width = k + 4 * Math.max(quadrant, 0);
+		int[] offsets = new int[n + 1];
+		int[] neighbors = new int[n * Math.max(width, 0)];
+		int[] buffer = new int[Math.max(width, 0)];
+		long[] distance = new long[Math.max(width, 0)];
+		boolean[] isAdded = new boolean[n];
+		int[] counts = new int[n];
+		for (int p = 0; p < n; p++) {
+			// 局所性を高めるため、k-d木の順に探索します。
+			int i = tree.get(p);
+			int count = tree.nearest(i, k, buffer, 0);
+			for (int q = 0; quadrant > 0 && q < 4; q++) {
+				count += tree.nearest(i, quadrant, q, buffer, count);
+			}
+			int begin = i * width;
+			int size = begin;
+			for (int j = 0; j < count; j++) {
+				int c = buffer[j];
+				if (!isAdded[c]) {
+					isAdded[c] = true;
+					long dx = (long) xs[c] - xs[i];
+					long dy = (long) ys[c] - ys[i];
+					long d = dx * dx + dy * dy;
+					// 挿入ソートで近い順に並べます。
+					int l = size++;
+					while (l > begin && distance[l - begin - 1] > d) {
+						neighbors[l] = neighbors[l - 1];
+						distance[l - begin] = distance[l - begin - 1];
+						l--;
+					}
+					neighbors[l] = c;
+					distance[l - begin] = d;
+				}
+			}
+			for (int j = begin; j < size; j++) {
+				isAdded[neighbors[j]] = false;
+			}
+			counts[i] = size - begin;
+		}
+		// 重複を除いた候補を詰めます。
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			offsets[i] = size;
+			System.arraycopy(neighbors, i * width, neighbors, size, counts[i]);
+			size += counts[i];
+		}
+		offsets[n] = size;
+		return new CandidateList(offsets, neighbors);
+	}
+
+	/**
+	 * 距離テーブルからk近傍の候補リストを作成します。
+	 * 座標から距離を求める距離テーブルであれば、k-d木によってO(n log n)で作成します。
+	 * それ以外の距離テーブルではO(n^2 k)で実行します。
+	 * @param table 距離テーブル
+	 * @param k 頂点あたりの候補の数、1以上
+	 * @return 候補リスト
+	 * @throws IllegalArgumentException kが1未満の場合
+	 */
+	public static CandidateList create(DistanceTable table, int k) {
+		if (k < 1) {
+			throw new IllegalArgumentException("k must be positive: " + k);
+		}
+		if (table instanceof CoordinateDistanceTable) {
+			CoordinateDistanceTable coordinate = (CoordinateDistanceTable) table;
+			return CandidateList.create(coordinate.getXs(), coordinate.getYs(), k, 0);
+		}
+		int n = table.size();
+		k = Math.min(k, Math.max(n - 1, 0));
+		int[] offsets = new int[n + 1];
+		int[] neighbors = new int[n * k];
+		double[] distance = new double[k];
+		for (int i = 0; i < n; i++) {
+			int begin = i * k;
+			offsets[i] = begin;
+			int size = 0;
+			for (int j = 0; j < n; j++) {
+				if (i == j) {
+					continue;
+				}
+				double d = table.get(i, j);
+				if (size == k && distance[k - 1] <= d) {
+					continue;
+				}
+				int l = size < k ? size++ : k - 1;
+				while (l > 0 && distance[l - 1] > d) {
+					neighbors[begin + l] = neighbors[begin + l - 1];
+					distance[l] = distance[l - 1];
+					l--;
+				}
+				neighbors[begin + l] = j;
+				distance[l] = d;
+			}
+		}
+		offsets[n] = n * k;
+		return new CandidateList(offsets, neighbors);
+	}
+
+	/**
+	 * 頂点の数を返します。
+	 * @return 頂点の数
+	 */
+	public int size() {
+		return this.offsets.length - 1;
+	}
+
+	/**
+	 * 頂点の候補の数を返します。
+	 * @param node 頂点
+	 * @return 候補の数
+	 */
+	public int size(int node) {
+		return this.offsets[node + 1] - this.offsets[node];
+	}
+
+	/**
+	 * 頂点のr番目に近い候補を返します。
+	 * @param node 頂点
+	 * @param r 順位
+	 * @return 候補
+	 */
+	public int get(int node, int r) {
+		return this.neighbors[this.offsets[node] + r];
+	}
+
+	/**
+	 * 頂点の候補に指定した頂点が含まれるか確認します。
+	 * @param node 頂点
+	 * @param target 確認する頂点
+	 * @return 含まれていればtrue
+	 */
+	public boolean contains(int node, int target) {
+		for (int l = this.offsets[node]; l < this.offsets[node + 1]; l++) {
+			if (this.neighbors[l] == target) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 頂点の候補の開始位置を返します。
+	 * 内側のループでは{@link #getNeighbors()}の配列を直接参照してください。
+	 * @param node 頂点
+	 * @return 候補の開始位置
+	 */
+	public int begin(int node) {
+		return this.offsets[node];
+	}
+
+	/**
+	 * 頂点の候補の終了位置を返します。
+	 * @param node 頂点
+	 * @return 候補の終了位置 + 1
+	 */
+	public int end(int node) {
+		return this.offsets[node + 1];
+	}
+
+	/**
+	 * すべての頂点の候補を格納した配列を返します。
+	 * @return 候補の配列
+	 */
+	public int[] getNeighbors() {
+		return this.neighbors;
+	}
+}
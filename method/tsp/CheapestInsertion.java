@@ -2,50 +2,103 @@ package method.tsp;
 
 import gui.DemoPanel;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 import model.Node;
+import util.IndexedHeap;
 
 
 /**
  * cheapest insertionによる巡回セールスマン問題の構築法です。
+ * 未訪問の頂点ごとに挿入コストが最小となる辺を保持し、挿入コストをキーとするヒープで管理します。
+ * 挿入によって分割された辺を最良としていた頂点は以前の挿入コストを下界として残し、
+ * ヒープの先頭に来たときにのみ挿入コストを求め直します。
  * @author ma38su
  */
 public class CheapestInsertion implements TspConstruction {
 	public List<Node> method(DemoPanel panel) {
-		Set<Node> nodes = new HashSet<Node>(panel.getNodes());
-		List<Node> route = new ArrayList<Node>(nodes.size() + 1);
-		Iterator<Node> itr = nodes.iterator();
-		if (itr.hasNext()) {
-			Node node = itr.next();
-			int insertion = 0;
-			while (!nodes.isEmpty()) {
-				route.add(insertion, node);
-				if (nodes.remove(node) && nodes.isEmpty()) {
-					break;
+		Node[] nodes = panel.getNodes().toArray(new Node[]{});
+		List<Node> route = new ArrayList<Node>(nodes.length + 1);
+		int n = nodes.length;
+		if (n > 0) {
+			// 巡回路を連結リストで表現し、next[i]は頂点iの次の頂点
+			int[] next = new int[n];
+			// 挿入コストが最小となる辺の始点
+			int[] insertion = new int[n];
+			// 挿入コストが下界であり、求め直す必要があればtrue
+			boolean[] isStale = new boolean[n];
+			IndexedHeap heap = new IndexedHeap(n);
+			int start = 0;
+			next[start] = start;
+			for (int i = 0; i < n; i++) {
+				if (i != start) {
+					insertion[i] = start;
+					heap.add(i, 2 * nodes[start].getDistance(nodes[i]));
 				}
-				panel.set(route);
-				Node nearest = null;
-				insertion = -1;
-				double min = Double.POSITIVE_INFINITY;
-				Node n0 = route.get(route.size() - 1);
-				for (int i = 0; i < route.size(); i++) {
-					Node n1 = route.get(i);
-					for (Node n : nodes) {
-						double distance = n0.getDistance(n) + n.getDistance(n1) - n0.getDistance(n1);
-						if (min > distance) {
-							min = distance;
-							insertion = i;
-							nearest = n;
+			}
+			int size = 1;
+			int step = Math.max(1, n / TspBase.FRAMES);
+			while (!heap.isEmpty()) {
+				if (size % step == 0) {
+					panel.set(TspBase.toList(nodes, next, start, size, route));
+				}
+				int node = heap.peek();
+				if (isStale[node]) {
+					// 最良の辺が分割されているので求め直す。
+					double min = Double.POSITIVE_INFINITY;
+					int s = start;
+					do {
+						int t = next[s];
+						double cost = nodes[s].getDistance(nodes[node]) + nodes[node].getDistance(nodes[t]) - nodes[s].getDistance(nodes[t]);
+						if (min > cost) {
+							min = cost;
+							insertion[node] = s;
 						}
+						s = t;
+					} while (s != start);
+					isStale[node] = false;
+					heap.add(node, min);
+					continue;
+				}
+				heap.poll();
+				int u = insertion[node];
+				int w = next[u];
+				next[u] = node;
+				next[node] = w;
+				size++;
+				double cost1 = nodes[u].getDistance(nodes[node]);
+				double cost2 = nodes[node].getDistance(nodes[w]);
+				for (int i = 0; i < n; i++) {
+					if (!heap.contains(i)) {
+						continue;
+					}
+					if (insertion[i] == u) {
+						// 分割された辺以外の挿入コストは以前の値以上なので、以前の値を下界として残す。
+						isStale[i] = true;
+					}
+					// 追加された2辺のみを評価する。
+					double min = heap.getValue(i);
+					double d = nodes[node].getDistance(nodes[i]);
+					double cost = nodes[u].getDistance(nodes[i]) + d - cost1;
+					boolean isUpdated = false;
+					if (min > cost) {
+						min = cost;
+						insertion[i] = u;
+						isUpdated = true;
+					}
+					cost = d + nodes[i].getDistance(nodes[w]) - cost2;
+					if (min > cost) {
+						min = cost;
+						insertion[i] = node;
+						isUpdated = true;
+					}
+					if (isUpdated) {
+						// 下界よりも小さいので最良の辺である。
+						isStale[i] = false;
+						heap.add(i, min);
 					}
-					n0 = n1;
 				}
-				assert insertion != -1 && nearest != null;
-				node = nearest;
 			}
+			TspBase.toList(nodes, next, start, size, route);
 		}
 		return route;
 	}
@@ -0,0 +1,343 @@
+package method.tsp;
+
+import gui.DemoPanel;
+import java.util.ArrayList;
+import java.util.List;
+import method.MinimumSpanningTree;
+import model.Node;
+import util.KdTree;
+import util.Matching;
+import util.Sort;
+
+
+/**
+ * Christofidesの手法による巡回セールスマン問題の構築法です。
+ * 最小スパニング木の次数が奇数の頂点について最小重み完全マッチングを求め、
+ * 木とマッチングの辺からなるオイラー閉路を、訪問済みの頂点を飛ばして巡回路にします。
+ * マッチングは、高速な貪欲法と、blossom algorithmによる厳密解法から選べます。
+ * 厳密解法は奇数次数の頂点が少なければ完全グラフで、多ければ候補近傍リストの辺で解くことで、
+ * 実行時間を抑えています。
+ * @author ma38su
+ */
+public class Christofides implements TspConstruction {
+
+	/**
+	 * 候補近傍リストの頂点あたりの候補の数
+	 */
+	private static final int CANDIDATES = 10;
+
+	/**
+	 * 厳密解法で完全グラフのマッチングを求める奇数次数の頂点の最大数
+	 */
+	private static final int COMPLETE_LIMIT = 300;
+
+	/**
+	 * マッチングの重みを整数にするための倍率
+	 */
+	private static final double SCALE = 1000;
+
+	/**
+	 * blossom algorithmによりマッチングを求める場合はtrue
+	 */
+	private final boolean isExact;
+
+	/**
+	 * コンストラクタ
+	 * 貪欲法によりマッチングを求めます。
+	 */
+	public Christofides() {
+		this(false);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param isExact blossom algorithmによりマッチングを求める場合はtrue
+	 */
+	public Christofides(boolean isExact) {
+		this.isExact = isExact;
+	}
+
+	public List<Node> method(DemoPanel panel) {
+		Node[] nodes = panel.getNodes().toArray(new Node[]{});
+		List<Node> route = new ArrayList<Node>(nodes.length + 1);
+		for (int i : this.method(nodes)) {
+			route.add(nodes[i]);
+		}
+		return route;
+	}
+
+	/**
+	 * 巡回路を求めます。
+	 * @param nodes 頂点配列
+	 * @return 訪問順に並べた頂点のインデックス
+	 */
+	public int[] method(Node[] nodes) {
+		int n = nodes.length;
+		if (n < 3) {
+			int[] order = new int[n];
+			for (int i = 0; i < n; i++) {
+				order[i] = i;
+			}
+			return order;
+		}
+		int[] parent = MinimumSpanningTree.createTree(nodes);
+
+		// 木の次数が奇数の頂点を求めます。
+		int[] degree = new int[n];
+		for (int i = 0; i < n; i++) {
+			if (parent[i] >= 0) {
+				degree[i]++;
+				degree[parent[i]]++;
+			}
+		}
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			if ((degree[i] & 1) != 0) {
+				size++;
+			}
+		}
+		int[] odd = new int[size];
+		int[] xs = new int[size];
+		int[] ys = new int[size];
+		size = 0;
+		for (int i = 0; i < n; i++) {
+			if ((degree[i] & 1) != 0) {
+				odd[size] = i;
+				xs[size] = nodes[i].getX();
+				ys[size] = nodes[i].getY();
+				size++;
+			}
+		}
+		int[] mate;
+		if (this.isExact) {
+			mate = this.exactMatching(xs, ys);
+		} else {
+			mate = this.greedyMatching(xs, ys);
+		}
+		this.completeMatching(xs, ys, mate);
+
+		// 木とマッチングの辺からなる多重グラフを隣接配列で表します。
+		int m = n - 1 + size / 2;
+		int[] edgeS = new int[m];
+		int[] edgeT = new int[m];
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			if (parent[i] >= 0) {
+				edgeS[count] = i;
+				edgeT[count] = parent[i];
+				count++;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			if (i < mate[i]) {
+				edgeS[count] = odd[i];
+				edgeT[count] = odd[mate[i]];
+				count++;
+			}
+		}
+		assert count == m;
+		int[] offsets = new int[n + 1];
+		for (int e = 0; e < m; e++) {
+			offsets[edgeS[e] + 1]++;
+			offsets[edgeT[e] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		int[] incidence = new int[2 * m];
+		int[] cursor = new int[n];
+		System.arraycopy(offsets, 0, cursor, 0, n);
+		for (int e = 0; e < m; e++) {
+			incidence[cursor[edgeS[e]]++] = e;
+			incidence[cursor[edgeT[e]]++] = e;
+		}
+		System.arraycopy(offsets, 0, cursor, 0, n);
+
+		// Hierholzerの手法でオイラー閉路をたどり、訪問済みの頂点を飛ばします。
+		boolean[] used = new boolean[m];
+		boolean[] visited = new boolean[n];
+		int[] stack = new int[m + 1];
+		int[] order = new int[n];
+		int length = 0;
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int v = stack[top - 1];
+			while (cursor[v] < offsets[v + 1] && used[incidence[cursor[v]]]) {
+				cursor[v]++;
+			}
+			if (cursor[v] < offsets[v + 1]) {
+				int e = incidence[cursor[v]++];
+				used[e] = true;
+				stack[top++] = edgeS[e] == v ? edgeT[e] : edgeS[e];
+			} else {
+				top--;
+				if (!visited[v]) {
+					visited[v] = true;
+					order[length++] = v;
+				}
+			}
+		}
+		assert length == n;
+		return order;
+	}
+
+	/**
+	 * 候補近傍リストの辺を短い順に調べ、貪欲法によりマッチングを求めます。
+	 * @param xs X座標
+	 * @param ys Y座標
+	 * @return 各頂点とマッチする頂点、マッチしていなければ-1
+	 */
+	private int[] greedyMatching(int[] xs, int[] ys) {
+		int n = xs.length;
+		int[] mate = new int[n];
+		for (int i = 0; i < n; i++) {
+			mate[i] = -1;
+		}
+		if (n < 2) {
+			return mate;
+		}
+		CandidateList candidates = CandidateList.create(xs, ys, CANDIDATES, 0);
+		int[] neighbors = candidates.getNeighbors();
+		int[] edgeS = new int[neighbors.length];
+		int[] edgeT = new int[neighbors.length];
+		long[] keys = new long[neighbors.length];
+		int[] edges = new int[neighbors.length];
+		for (int i = 0; i < n; i++) {
+			for (int l = candidates.begin(i); l < candidates.end(i); l++) {
+				int c = neighbors[l];
+				double dx = xs[i] - xs[c];
+				double dy = ys[i] - ys[c];
+				edgeS[l] = i;
+				edgeT[l] = c;
+				keys[l] = Double.doubleToLongBits(Math.sqrt(dx * dx + dy * dy));
+				edges[l] = l;
+			}
+		}
+		Sort.sort(keys, edges);
+		for (int e : edges) {
+			int s = edgeS[e];
+			int t = edgeT[e];
+			if (mate[s] < 0 && mate[t] < 0) {
+				mate[s] = t;
+				mate[t] = s;
+			}
+		}
+		return mate;
+	}
+
+	/**
+	 * blossom algorithmにより最小重み完全マッチングを求めます。
+	 * 奇数次数の頂点が多い場合は、候補近傍リストの辺に限定して求めます。
+	 * @param xs X座標
+	 * @param ys Y座標
+	 * @return 各頂点とマッチする頂点、マッチしていなければ-1
+	 */
+	private int[] exactMatching(int[] xs, int[] ys) {
+		int n = xs.length;
+		int[] edgeS;
+		int[] edgeT;
+		if (n <= COMPLETE_LIMIT) {
+			edgeS = new int[n * (n - 1) / 2];
+			edgeT = new int[edgeS.length];
+			int size = 0;
+			for (int i = 0; i < n; i++) {
+				for (int j = i + 1; j < n; j++) {
+					edgeS[size] = i;
+					edgeT[size] = j;
+					size++;
+				}
+			}
+		} else {
+			CandidateList candidates = CandidateList.create(xs, ys, CANDIDATES, 0);
+			int[] neighbors = candidates.getNeighbors();
+			edgeS = new int[neighbors.length];
+			edgeT = new int[neighbors.length];
+			int size = 0;
+			for (int i = 0; i < n; i++) {
+				for (int l = candidates.begin(i); l < candidates.end(i); l++) {
+					int c = neighbors[l];
+					if (i > c && candidates.contains(c, i)) {
+						continue;
+					}
+					edgeS[size] = i;
+					edgeT[size] = c;
+					size++;
+				}
+			}
+			if (size < edgeS.length) {
+				int[] tmpS = new int[size];
+				int[] tmpT = new int[size];
+				System.arraycopy(edgeS, 0, tmpS, 0, size);
+				System.arraycopy(edgeT, 0, tmpT, 0, size);
+				edgeS = tmpS;
+				edgeT = tmpT;
+			}
+		}
+		// 要素数が最大のマッチングのうち重み最大のものを求めるので、距離が短いほど重みを大きくします。
+		long[] weight = new long[edgeS.length];
+		long max = 0;
+		for (int e = 0; e < edgeS.length; e++) {
+			double dx = xs[edgeS[e]] - xs[edgeT[e]];
+			double dy = ys[edgeS[e]] - ys[edgeT[e]];
+			weight[e] = Math.round(Math.sqrt(dx * dx + dy * dy) * SCALE);
+			max = Math.max(max, weight[e]);
+		}
+		for (int e = 0; e < weight.length; e++) {
+			weight[e] = max + 1 - weight[e];
+		}
+		return new Matching(n, edgeS, edgeT, weight).solve(true);
+	}
+
+	/**
+	 * マッチしていない頂点を、最も近いマッチしていない頂点と順にマッチさせます。
+	 * @param xs X座標
+	 * @param ys Y座標
+	 * @param mate 各頂点とマッチする頂点、マッチしていなければ-1
+	 */
+	private void completeMatching(int[] xs, int[] ys, int[] mate) {
+		int n = xs.length;
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			if (mate[i] < 0) {
+				size++;
+			}
+		}
+		if (size == 0) {
+			return;
+		}
+		int[] rest = new int[size];
+		int[] restX = new int[size];
+		int[] restY = new int[size];
+		size = 0;
+		for (int i = 0; i < n; i++) {
+			if (mate[i] < 0) {
+				rest[size] = i;
+				restX[size] = xs[i];
+				restY[size] = ys[i];
+				size++;
+			}
+		}
+		KdTree tree = new KdTree(restX, restY);
+		for (int i = 0; i < size; i++) {
+			if (!tree.contains(i)) {
+				continue;
+			}
+			tree.remove(i);
+			int j = tree.nearest(restX[i], restY[i]);
+			assert j >= 0;
+			tree.remove(j);
+			mate[rest[i]] = rest[j];
+			mate[rest[j]] = rest[i];
+		}
+	}
+
+	@Override
+	public String toString() {
+		if (this.isExact) {
+			return "Christofides - blossom";
+		} else {
+			return "Christofides";
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package method.tsp;
+
+
+/**
+ * 焼きなまし法の温度の冷却スケジュールです。
+ * 温度は巡回路の平均の辺の長さに対する比で表し、経過時間の割合に応じて開始温度から終了温度まで下げます。
+ * @author ma38su
+ */
+public class CoolingSchedule {
+
+	/**
+	 * 開始温度
+	 */
+	private final double start;
+
+	/**
+	 * 終了温度
+	 */
+	private final double end;
+
+	/**
+	 * 指数的に冷却する場合はtrue、線形に冷却する場合はfalse
+	 */
+	private final boolean isGeometric;
+
+	/**
+	 * コンストラクタ
+	 * @param start 開始温度
+	 * @param end 終了温度
+	 * @param isGeometric 指数的に冷却する場合はtrue
+	 */
+	private CoolingSchedule(double start, double end, boolean isGeometric) {
+		if (start <= 0 || end <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.start = start;
+		this.end = end;
+		this.isGeometric = isGeometric;
+	}
+
+	/**
+	 * 温度を一定の比率で下げる冷却スケジュールを作成します。
+	 * @param start 平均の辺の長さに対する開始温度の比
+	 * @param end 平均の辺の長さに対する終了温度の比
+	 * @return 冷却スケジュール
+	 */
+	public static CoolingSchedule geometric(double start, double end) {
+		return new CoolingSchedule(start, end, true);
+	}
+
+	/**
+	 * 温度を一定の幅で下げる冷却スケジュールを作成します。
+	 * @param start 平均の辺の長さに対する開始温度の比
+	 * @param end 平均の辺の長さに対する終了温度の比
+	 * @return 冷却スケジュール
+	 */
+	public static CoolingSchedule linear(double start, double end) {
+		return new CoolingSchedule(start, end, false);
+	}
+
+	/**
+	 * 温度を返します。
+	 * @param progress 経過時間の割合、0から1
+	 * @return 平均の辺の長さに対する温度の比
+	 */
+	public double get(double progress) {
+		if (this.isGeometric) {
+			return this.start * Math.pow(this.end / this.start, progress);
+		} else {
+			return this.start + (this.end - this.start) * progress;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return (this.isGeometric ? "geometric " : "linear ") + this.start + " -> " + this.end;
+	}
+}
@@ -0,0 +1,24 @@
+package method.tsp;
+
+
+/**
+ * 頂点間の距離を与えるインターフェースです。
+ * 頂点はインデックスで指定し、距離は対称であるとします。
+ * @author ma38su
+ */
+public interface DistanceTable {
+
+	/**
+	 * 頂点の数を返します。
+	 * @return 頂点の数
+	 */
+	public int size();
+
+	/**
+	 * 頂点間の距離を返します。
+	 * @param i 頂点
+	 * @param j 頂点
+	 * @return 頂点間の距離
+	 */
+	public double get(int i, int j);
+}
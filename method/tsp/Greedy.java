@@ -0,0 +1,117 @@
+package method.tsp;
+
+import gui.DemoPanel;
+import java.util.ArrayList;
+import java.util.List;
+import model.Node;
+import util.Sort;
+import util.UnionFind;
+
+
+/**
+ * greedy（greedy matching）による巡回セールスマン問題の構築法です。
+ * 候補近傍リストの辺を短い順に調べ、両端の頂点の次数が2未満で、
+ * 閉路を作らない辺のみを採用します。閉路の判定にはUnion-Findを用います。
+ * 候補の辺だけでは巡回路にならない場合は、最も近い端点同士を連結します。
+ * @author ma38su
+ */
+public class Greedy implements TspConstruction {
+
+	/**
+	 * 頂点あたりのk近傍の数
+	 */
+	private final int k;
+
+	/**
+	 * 象限あたりの候補の数
+	 */
+	private final int quadrant;
+
+	/**
+	 * コンストラクタ
+	 */
+	public Greedy() {
+		this(10, 0);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param k 頂点あたりのk近傍の数
+	 * @param quadrant 象限あたりの候補の数
+	 */
+	public Greedy(int k, int quadrant) {
+		this.k = k;
+		this.quadrant = quadrant;
+	}
+
+	public List<Node> method(DemoPanel panel) {
+		Node[] nodes = panel.getNodes().toArray(new Node[]{});
+		List<Node> route = new ArrayList<Node>(nodes.length + 1);
+		int n = nodes.length;
+		if (n > 0) {
+			int[] xs = new int[n];
+			int[] ys = new int[n];
+			for (int i = 0; i < n; i++) {
+				xs[i] = nodes[i].getX();
+				ys[i] = nodes[i].getY();
+			}
+			CandidateList candidates = CandidateList.create(xs, ys, this.k, this.quadrant);
+
+			// 候補の辺を列挙します。両方向に含まれる辺は1度だけ列挙します。
+			int[] neighbors = candidates.getNeighbors();
+			int[] edgeS = new int[neighbors.length];
+			int[] edgeT = new int[neighbors.length];
+			long[] keys = new long[neighbors.length];
+			int[] edges = new int[neighbors.length];
+			int size = 0;
+			for (int i = 0; i < n; i++) {
+				for (int l = candidates.begin(i); l < candidates.end(i); l++) {
+					int c = neighbors[l];
+					if (i > c && candidates.contains(c, i)) {
+						continue;
+					}
+					double dx = xs[i] - xs[c];
+					double dy = ys[i] - ys[c];
+					edgeS[size] = i;
+					edgeT[size] = c;
+					keys[size] = Double.doubleToLongBits(Math.sqrt(dx * dx + dy * dy));
+					edges[size] = size;
+					size++;
+				}
+			}
+			if (size < keys.length) {
+				long[] tmpKeys = new long[size];
+				int[] tmpEdges = new int[size];
+				System.arraycopy(keys, 0, tmpKeys, 0, size);
+				System.arraycopy(edges, 0, tmpEdges, 0, size);
+				keys = tmpKeys;
+				edges = tmpEdges;
+			}
+			Sort.sort(keys, edges);
+
+			// 短い辺から採用します。
+			int[] adjacent = new int[2 * n];
+			for (int i = 0; i < adjacent.length; i++) {
+				adjacent[i] = -1;
+			}
+			int[] degree = new int[n];
+			UnionFind uf = new UnionFind(n);
+			for (int e : edges) {
+				int s = edgeS[e];
+				int t = edgeT[e];
+				if (degree[s] < 2 && degree[t] < 2 && uf.union(s, t)) {
+					adjacent[2 * s + degree[s]++] = t;
+					adjacent[2 * t + degree[t]++] = s;
+				}
+			}
+
+			TspBase.connect(nodes, xs, ys, adjacent, degree, route);
+		}
+		return route;
+	}
+
+	@Override
+	public String toString() {
+		return "greedy";
+	}
+}
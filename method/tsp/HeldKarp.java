@@ -2,6 +2,8 @@
 package method.tsp;
 
 import gui.DemoPanel;
+import java.io.File;
+import java.io.IOException;
 import method.GraphDemonstration;
 import model.Node;
 import util.Heap;
@@ -13,8 +15,41 @@ import util.Heap;
  */
 public class HeldKarp implements GraphDemonstration {
 	private final int limit;
+
+	/**
+	 * 距離テーブルを単精度で格納する場合はtrue
+	 */
+	private final boolean isFloat;
+
+	/**
+	 * 距離テーブルを保存するファイル、保存しない場合はnull
+	 */
+	private final File file;
+
 	public HeldKarp(int limit) {
+		this(limit, false);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param limit ラグランジュ緩和の試行回数
+	 * @param isFloat 距離テーブルを単精度で格納する場合はtrue
+	 */
+	public HeldKarp(int limit, boolean isFloat) {
+		this(limit, isFloat, null);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 距離テーブルをファイルに保存し、次回からは保存した距離テーブルをメモリマップで読み込みます。
+	 * @param limit ラグランジュ緩和の試行回数
+	 * @param isFloat 距離テーブルを単精度で格納する場合はtrue
+	 * @param file 距離テーブルを保存するファイル、保存しない場合はnull
+	 */
+	public HeldKarp(int limit, boolean isFloat, File file) {
 		this.limit = limit;
+		this.isFloat = isFloat;
+		this.file = file;
 	}
 	/**
 	 * 一時的に辺を表現するためのクラス
@@ -89,12 +124,12 @@ public class HeldKarp implements GraphDemonstration {
 	 * @param edges 辺の接続関係
 	 * @return 巡回路のコストの下界
 	 */
-	private double getLowerCost(double[][] table, double[] multiplier, boolean[][] edges) {
+	private double getLowerCost(DistanceTable table, double[] multiplier, boolean[][] edges) {
 		double cost = 0;
-		for (int i = 0; i < table.length; i++) {
-			for (int j = i + 1; j < table[i].length; j++) {
+		for (int i = 0; i < table.size(); i++) {
+			for (int j = i + 1; j < table.size(); j++) {
 				if (edges[i][j]) {
-					cost += table[i][j] + multiplier[i] + multiplier[j];
+					cost += table.get(i, j) + multiplier[i] + multiplier[j];
 				}
 			}
 		}
@@ -113,7 +148,7 @@ public class HeldKarp implements GraphDemonstration {
 	 * @param table 距離テーブル
 	 * @param multipliers ラグランジュ緩和による距離の補正
 	 */
-	private void getOneTree(DemoPanel panel, final boolean[][] edges, final double[][] table, final double[] multipliers) {
+	private void getOneTree(DemoPanel panel, final boolean[][] edges, final DistanceTable table, final double[] multipliers) {
 		for (int i = 0; i < edges.length; i++) {
 			for (int j = 0; j < edges.length; j++) {
 				edges[i][j] = false;
@@ -130,7 +165,7 @@ public class HeldKarp implements GraphDemonstration {
 			do {
 				for (int i = 0; i < edges.length; i++) {
 					if (i != index && !close[i]) {
-						open.add(new Edge(index, i, table[index][i] + multipliers[index] + multipliers[i]));
+						open.add(new Edge(index, i, table.get(index, i) + multipliers[index] + multipliers[i]));
 					}
 				}
 				e = open.poll();
@@ -146,7 +181,7 @@ public class HeldKarp implements GraphDemonstration {
 			open.clear();
 			for (int i = 0; i < edges.length; i++) {
 				if (s != i) {
-					open.add(new Edge(s, i, table[index][i] + multipliers[index] + multipliers[i]));
+					open.add(new Edge(s, i, table.get(index, i) + multipliers[index] + multipliers[i]));
 				}
 			}
 			e = open.poll();
@@ -159,23 +194,26 @@ public class HeldKarp implements GraphDemonstration {
 	}
 
 	/**
-	 * 距離テーブルを作成します。
+	 * 頂点間の距離を上三角行列として格納した距離テーブルを作成します。
+	 * 上三角行列が最大ヒープの4分の1に収まらなければ、座標から距離を求める距離テーブルを作成します。
+	 * ファイルを指定した場合は、保存した距離テーブルを読み込みます。
 	 * @param nodes 頂点配列
 	 * @return 距離テーブル
 	 */
-	public double[][] createTable(Node[] nodes) {
-		final double[][] table = new double[nodes.length][nodes.length];
-		for (int i = 0; i < nodes.length; i++) {
-			for (int j = 0; j < nodes.length; j++) {
-				table[i][j] = nodes[i].getDistance(nodes[j]);
+	public DistanceTable createTable(Node[] nodes) {
+		if (this.file != null) {
+			try {
+				return MappedDistanceTable.load(this.file, nodes, this.isFloat);
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
 		}
-		return table;
+		return TspBase.getCostTable(nodes, this.isFloat);
 	}
 
 	public void method(DemoPanel panel) {
 		final Node[] nodes = panel.getNodes().toArray(new Node[]{});
-		double[][] table = createTable(nodes);
+		DistanceTable table = createTable(nodes);
 		boolean[][] edges = new boolean[nodes.length][nodes.length];
 		double[] multipliers = new double[nodes.length];
 		BetterCase betterCase = new BetterCase(nodes.length);
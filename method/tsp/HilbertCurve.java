@@ -0,0 +1,144 @@
+package method.tsp;
+
+import gui.DemoPanel;
+import java.util.ArrayList;
+import java.util.List;
+import model.Node;
+import util.Sort;
+
+
+/**
+ * Hilbert曲線（空間充填曲線）による巡回セールスマン問題の構築法です。
+ * 頂点の座標をHilbert曲線上の位置に変換し、その順に訪問します。
+ * O(n log n)で実行でき、100万頂点を超える問題でも初期解を高速に求められます。
+ * 改善法を指定した場合は、求めた巡回路に配列版の改善法を続けて適用します。
+ * @author ma38su
+ */
+public class HilbertCurve implements TspConstruction {
+
+	/**
+	 * 座標あたりの最大のビット数
+	 */
+	private static final int MAX_BITS = 31;
+
+	/**
+	 * 候補近傍リストの頂点あたりの候補の数
+	 */
+	private static final int CANDIDATES = 10;
+
+	/**
+	 * 改善法
+	 */
+	private final TspImprovement opt;
+
+	/**
+	 * コンストラクタ
+	 */
+	public HilbertCurve() {
+		this(null);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param opt 求めた巡回路に適用する改善法、適用しない場合はnull
+	 */
+	public HilbertCurve(TspImprovement opt) {
+		this.opt = opt;
+	}
+
+	public List<Node> method(DemoPanel panel) {
+		Node[] nodes = panel.getNodes().toArray(new Node[]{});
+		List<Node> route = new ArrayList<Node>(nodes.length + 1);
+		int n = nodes.length;
+		if (n > 0) {
+			int[] xs = new int[n];
+			int[] ys = new int[n];
+			for (int i = 0; i < n; i++) {
+				xs[i] = nodes[i].getX();
+				ys[i] = nodes[i].getY();
+			}
+			int[] order = HilbertCurve.order(xs, ys);
+			if (this.opt != null) {
+				DistanceTable table = new CoordinateDistanceTable(xs, ys);
+				CandidateList candidates = CandidateList.create(xs, ys, CANDIDATES, 0);
+				while (this.opt.method(order, table, candidates) < 0 && !(this.opt instanceof TimeLimited));
+			}
+			for (int i : order) {
+				route.add(nodes[i]);
+			}
+		}
+		return route;
+	}
+
+	/**
+	 * 頂点をHilbert曲線上の順に並べます。
+	 * @param xs X座標
+	 * @param ys Y座標
+	 * @return Hilbert曲線上の順に並べた頂点
+	 */
+	public static int[] order(int[] xs, int[] ys) {
+		int n = xs.length;
+		int[] order = new int[n];
+		if (n == 0) {
+			return order;
+		}
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		for (int i = 0; i < n; i++) {
+			minX = Math.min(minX, xs[i]);
+			minY = Math.min(minY, ys[i]);
+			maxX = Math.max(maxX, xs[i]);
+			maxY = Math.max(maxY, ys[i]);
+		}
+		long range = Math.max((long) maxX - minX, (long) maxY - minY);
+		int bits = Math.max(1, 64 - Long.numberOfLeadingZeros(range));
+		int shift = Math.max(0, bits - MAX_BITS);
+		bits -= shift;
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++) {
+			keys[i] = HilbertCurve.index(bits, ((long) xs[i] - minX) >> shift, ((long) ys[i] - minY) >> shift);
+			order[i] = i;
+		}
+		Sort.sort(keys, order);
+		return order;
+	}
+
+	/**
+	 * 座標をHilbert曲線上の位置に変換します。
+	 * @param bits 座標のビット数
+	 * @param x 0以上2^bits未満のX座標
+	 * @param y 0以上2^bits未満のY座標
+	 * @return Hilbert曲線上の位置
+	 */
+	public static long index(int bits, long x, long y) {
+		long n = 1L << bits;
+		long d = 0;
+		for (long s = n >> 1; s > 0; s >>= 1) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += s * s * ((3 * rx) ^ ry);
+			// 象限に合わせて回転します。
+			if (ry == 0) {
+				if (rx == 1) {
+					x = n - 1 - x;
+					y = n - 1 - y;
+				}
+				long tmp = x;
+				x = y;
+				y = tmp;
+			}
+		}
+		return d;
+	}
+
+	@Override
+	public String toString() {
+		if (this.opt != null) {
+			return "space filling curve - " + this.opt;
+		} else {
+			return "space filling curve";
+		}
+	}
+}
@@ -2,23 +2,81 @@ package method.tsp;
 
 import java.util.List;
 import model.Node;
+import model.Tour;
 
 
 /**
  * 改善法を順序を指定して適用するためのクラス
  * 改善法が適用できなくなれば、改めて最初の改善法から適用していきます。
+ * 適応的に適用する場合は、改善法ごとに成功率と1ナノ秒あたりの改善量を記録し、
+ * 改善量の大きい改善法から順に適用します。まだ適用していない改善法は最初に試します。
+ * 記録は巡回路の長さの変化量を返すメソッドで行い、最近の適用ほど重視します。
  * @author ma38su
  */
 public class ImproveRoutine implements TspImprovement {
+
+	/**
+	 * 適用のたびに過去の記録に掛ける減衰率
+	 */
+	private static final double DECAY = 0.9;
+
 	TspImprovement[] algorithm;
-	
+
+	/**
+	 * 適応的に順序を変える場合はtrue
+	 */
+	private final boolean isAdaptive;
+
+	/**
+	 * 改善法を適用する順序
+	 */
+	private final int[] order;
+
+	/**
+	 * 改善法を適用した回数
+	 */
+	private final int[] calls;
+
+	/**
+	 * 改善法で改善できた回数
+	 */
+	private final int[] successes;
+
+	/**
+	 * 減衰させた改善量の合計
+	 */
+	private final double[] gains;
+
+	/**
+	 * 減衰させた実行時間（ns）の合計
+	 */
+	private final double[] times;
+
 	public ImproveRoutine(TspImprovement... algorithm) {
+		this(false, algorithm);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param isAdaptive 成功率と1ナノ秒あたりの改善量に応じて順序を変える場合はtrue
+	 * @param algorithm 改善法
+	 */
+	public ImproveRoutine(boolean isAdaptive, TspImprovement... algorithm) {
 		this.algorithm = algorithm;
+		this.isAdaptive = isAdaptive;
+		this.order = new int[algorithm.length];
+		for (int i = 0; i < this.order.length; i++) {
+			this.order[i] = i;
+		}
+		this.calls = new int[algorithm.length];
+		this.successes = new int[algorithm.length];
+		this.gains = new double[algorithm.length];
+		this.times = new double[algorithm.length];
 	}
 
 	public boolean method(List<Node> route) {
 		for (int i = 0; i < this.algorithm.length; i++) {
-			if (this.algorithm[i].method(route)) {
+			if (this.algorithm[this.order[i]].method(route)) {
 				return true;
 			}
 		}
@@ -37,10 +95,108 @@ public class ImproveRoutine implements TspImprovement {
 			}
 			sb.append(tsp);
 		}
+		if (this.isAdaptive) {
+			sb.append(" - adaptive");
+		}
 		return sb.toString();
 	}
 
-	public boolean method(int[] route, double[][] table) {
-		throw new IllegalAccessError();
+	public double method(int[] route, DistanceTable table) {
+		for (int i = 0; i < this.algorithm.length; i++) {
+			int index = this.order[i];
+			long start = System.nanoTime();
+			double delta = this.algorithm[index].method(route, table);
+			this.record(index, delta, System.nanoTime() - start);
+			if (delta < 0) {
+				this.sort();
+				return delta;
+			}
+		}
+		this.sort();
+		return 0;
+	}
+
+	public double method(int[] route, DistanceTable table, CandidateList candidates) {
+		for (int i = 0; i < this.algorithm.length; i++) {
+			int index = this.order[i];
+			long start = System.nanoTime();
+			double delta = this.algorithm[index].method(route, table, candidates);
+			this.record(index, delta, System.nanoTime() - start);
+			if (delta < 0) {
+				this.sort();
+				return delta;
+			}
+		}
+		this.sort();
+		return 0;
+	}
+
+	public double method(Tour tour, DistanceTable table) {
+		for (int i = 0; i < this.algorithm.length; i++) {
+			int index = this.order[i];
+			long start = System.nanoTime();
+			double delta = this.algorithm[index].method(tour, table);
+			this.record(index, delta, System.nanoTime() - start);
+			if (delta < 0) {
+				this.sort();
+				return delta;
+			}
+		}
+		this.sort();
+		return 0;
+	}
+
+	/**
+	 * 改善法を適用した結果を記録します。
+	 * @param index 改善法
+	 * @param delta 巡回路の長さの変化量
+	 * @param time 実行時間（ns）
+	 */
+	private void record(int index, double delta, long time) {
+		if (!this.isAdaptive) {
+			return;
+		}
+		this.calls[index]++;
+		if (delta < 0) {
+			this.successes[index]++;
+		}
+		this.gains[index] = this.gains[index] * DECAY - Math.min(delta, 0);
+		this.times[index] = this.times[index] * DECAY + Math.max(time, 1);
+	}
+
+	/**
+	 * 適応的に適用する場合は、記録に応じて改善法を適用する順序を挿入ソートで並べ替えます。
+	 */
+	private void sort() {
+		if (!this.isAdaptive) {
+			return;
+		}
+		for (int i = 1; i < this.order.length; i++) {
+			int index = this.order[i];
+			int j = i;
+			while (j > 0 && this.compare(index, this.order[j - 1]) < 0) {
+				this.order[j] = this.order[j - 1];
+				j--;
+			}
+			this.order[j] = index;
+		}
+	}
+
+	/**
+	 * 改善法を先に適用する順に比較します。
+	 * まだ適用していない改善法、1ナノ秒あたりの改善量が大きい改善法、成功率が高い改善法の順です。
+	 * @param a 改善法
+	 * @param b 改善法
+	 * @return aを先に適用する場合は負の値
+	 */
+	private int compare(int a, int b) {
+		if (this.calls[a] == 0 || this.calls[b] == 0) {
+			return (this.calls[a] == 0 ? 0 : 1) - (this.calls[b] == 0 ? 0 : 1);
+		}
+		int compare = Double.compare(this.gains[b] / this.times[b], this.gains[a] / this.times[a]);
+		if (compare != 0) {
+			return compare;
+		}
+		return Double.compare((double) this.successes[b] / this.calls[b], (double) this.successes[a] / this.calls[a]);
 	}
 }
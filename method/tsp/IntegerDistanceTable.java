@@ -0,0 +1,111 @@
+package method.tsp;
+
+import model.Node;
+
+
+/**
+ * TSPLIBの整数の距離関数で求めた距離を、1つのint型の配列に上三角行列として格納する距離テーブルです。
+ * 格納方法はTriangularDistanceTableと同じで、頂点iの行を配列上で連続に並べます。
+ * 改善法と分枝限定法は、この距離テーブルであれば整数の演算で変化量や下界を比較します。
+ * @author ma38su
+ */
+public class IntegerDistanceTable implements DistanceTable {
+
+	/**
+	 * 頂点の数
+	 */
+	private final int size;
+
+	/**
+	 * 頂点iの行の開始位置からi + 1を引いた位置、頂点i、j（i < j）の距離はoffsets[i] + jに格納します。
+	 */
+	private final int[] offsets;
+
+	/**
+	 * 距離
+	 */
+	private final int[] distances;
+
+	/**
+	 * 距離関数
+	 */
+	private final IntegerMetric metric;
+
+	/**
+	 * コンストラクタ
+	 * @param nodes 頂点配列
+	 * @param metric 距離関数
+	 */
+	public IntegerDistanceTable(Node[] nodes, IntegerMetric metric) {
+		this(IntegerDistanceTable.getXs(nodes), IntegerDistanceTable.getYs(nodes), metric);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param xs X座標
+	 * @param ys Y座標
+	 * @param metric 距離関数
+	 */
+	public IntegerDistanceTable(int[] xs, int[] ys, IntegerMetric metric) {
+		int n = xs.length;
+		if (ys.length != n || n > TriangularDistanceTable.MAX_SIZE) {
+			throw new IllegalArgumentException();
+		}
+		this.size = n;
+		this.metric = metric;
+		this.offsets = new int[n];
+		this.distances = new int[(int) ((long) n * (n - 1) / 2)];
+		int offset = 0;
+		for (int i = 0; i < n; i++) {
+			this.offsets[i] = offset - i - 1;
+			for (int j = i + 1; j < n; j++) {
+				this.distances[offset++] = metric.get(xs[i] - xs[j], ys[i] - ys[j]);
+			}
+		}
+	}
+
+	private static int[] getXs(Node[] nodes) {
+		int[] xs = new int[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			xs[i] = nodes[i].getX();
+		}
+		return xs;
+	}
+
+	private static int[] getYs(Node[] nodes) {
+		int[] ys = new int[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			ys[i] = nodes[i].getY();
+		}
+		return ys;
+	}
+
+	/**
+	 * 距離関数を返します。
+	 * @return 距離関数
+	 */
+	public IntegerMetric getMetric() {
+		return this.metric;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public double get(int i, int j) {
+		return this.getInt(i, j);
+	}
+
+	/**
+	 * 頂点間の距離を整数で返します。
+	 * @param i 頂点
+	 * @param j 頂点
+	 * @return 頂点間の距離
+	 */
+	public int getInt(int i, int j) {
+		if (i == j) {
+			return 0;
+		}
+		return this.distances[i < j ? this.offsets[i] + j : this.offsets[j] + i];
+	}
+}
@@ -0,0 +1,69 @@
+package method.tsp;
+
+
+/**
+ * TSPLIBで定められた、頂点間の距離を整数に丸める距離関数です。
+ * 距離を整数で扱うことで、巡回路の長さの比較や下界による枝刈りの判定に浮動小数点数の誤差が生じません。
+ * @author ma38su
+ */
+public abstract class IntegerMetric {
+
+	/**
+	 * ユークリッド距離を最も近い整数に丸めます（EUC_2D）。
+	 */
+	public static final IntegerMetric EUC_2D = new IntegerMetric("EUC_2D") {
+		@Override
+		public int get(double dx, double dy) {
+			return (int) (Math.sqrt(dx * dx + dy * dy) + 0.5);
+		}
+	};
+
+	/**
+	 * ユークリッド距離を整数に切り上げます（CEIL_2D）。
+	 */
+	public static final IntegerMetric CEIL_2D = new IntegerMetric("CEIL_2D") {
+		@Override
+		public int get(double dx, double dy) {
+			return (int) Math.ceil(Math.sqrt(dx * dx + dy * dy));
+		}
+	};
+
+	/**
+	 * 擬ユークリッド距離です（ATT）。
+	 * 座標の差の2乗和を10で割った平方根を整数に丸め、丸めた値が平方根より小さければ1を加えます。
+	 */
+	public static final IntegerMetric ATT = new IntegerMetric("ATT") {
+		@Override
+		public int get(double dx, double dy) {
+			double r = Math.sqrt((dx * dx + dy * dy) / 10);
+			int t = (int) (r + 0.5);
+			return t < r ? t + 1 : t;
+		}
+	};
+
+	/**
+	 * TSPLIBでの名前
+	 */
+	private final String name;
+
+	/**
+	 * コンストラクタ
+	 * @param name TSPLIBでの名前
+	 */
+	private IntegerMetric(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * 座標の差から距離を求めます。
+	 * @param dx X座標の差
+	 * @param dy Y座標の差
+	 * @return 距離
+	 */
+	public abstract int get(double dx, double dy);
+
+	@Override
+	public String toString() {
+		return this.name;
+	}
+}
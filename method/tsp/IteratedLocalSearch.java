@@ -0,0 +1,264 @@
+package method.tsp;
+
+import java.util.List;
+import java.util.Random;
+import model.Node;
+import model.Tour;
+import model.TourFactory;
+import model.UndoableTour;
+
+
+/**
+ * 反復局所探索法による巡回セールスマン問題の改善法です。
+ * 局所最適解にdouble bridgeの摂動を加え、摂動で変更した辺の端点のみのdon't look bitを外して
+ * Lin-Kernighanの手法で局所最適解まで改善し、元の巡回路より短くなれば受理します。
+ * 受理しなければ、反転の記録をたどって元の巡回路に戻します。
+ * double bridgeは近い位置にある指定した長さ以下の3つの連続する区間を、区間を反転せずに逆の順序に並べ替えるため、
+ * 摂動と再探索はいずれも頂点の数によらない手間で実行できます。
+ * 指定した時間が経過するまで摂動を繰り返します。
+ * @author ma38su
+ */
+public class IteratedLocalSearch implements TspImprovement, TimeLimited {
+
+	/**
+	 * 改善とみなす最小の変化量
+	 */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * 候補近傍リストの頂点あたりの候補の数
+	 */
+	private static final int CANDIDATES = 8;
+
+	/**
+	 * 摂動で入れ替える区間の既定の最大の長さ
+	 */
+	private static final int SEGMENT = 50;
+
+	/**
+	 * 局所探索の交換の既定の最大の深さ
+	 */
+	private static final int DEPTH = 50;
+
+	/**
+	 * 探索する時間（ms）
+	 */
+	private final long time;
+
+	/**
+	 * 摂動で入れ替える区間の最大の長さ
+	 */
+	private final int segment;
+
+	/**
+	 * 乱数
+	 */
+	private final Random rand;
+
+	/**
+	 * 局所探索
+	 */
+	private final LinKernighan opt;
+
+	/**
+	 * 配列で与えられた巡回路の表現を選ぶファクトリ
+	 */
+	private final TourFactory factory;
+
+	/**
+	 * 距離テーブルごとに作成した候補近傍リスト
+	 */
+	private final CandidateCache candidateCache = new CandidateCache(CANDIDATES);
+
+	/**
+	 * コンストラクタ
+	 * 10秒間探索します。
+	 */
+	public IteratedLocalSearch() {
+		this(10000, 0);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param time 探索する時間（ms）
+	 * @param seed 乱数のシード
+	 */
+	public IteratedLocalSearch(long time, long seed) {
+		this(time, seed, SEGMENT, DEPTH);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param time 探索する時間（ms）
+	 * @param seed 乱数のシード
+	 * @param segment 摂動で入れ替える区間の最大の長さ
+	 * @param depth 局所探索の交換の最大の深さ
+	 */
+	public IteratedLocalSearch(long time, long seed, int segment, int depth) {
+		this(time, seed, segment, depth, new TourFactory());
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param time 探索する時間（ms）
+	 * @param seed 乱数のシード
+	 * @param segment 摂動で入れ替える区間の最大の長さ
+	 * @param depth 局所探索の交換の最大の深さ
+	 * @param factory 配列で与えられた巡回路の表現を選ぶファクトリ
+	 */
+	public IteratedLocalSearch(long time, long seed, int segment, int depth, TourFactory factory) {
+		if (segment < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.time = time;
+		this.segment = segment;
+		this.rand = new Random(seed);
+		this.factory = factory;
+		this.opt = new LinKernighan(depth, factory);
+	}
+
+	public boolean method(List<Node> route) {
+		Node[] nodes = route.toArray(new Node[]{});
+		int[] order = new int[nodes.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Tour tour = this.factory.create(order);
+		if (this.method(tour, new CoordinateDistanceTable(nodes)) < 0) {
+			for (int i = 0; i < nodes.length; i++) {
+				route.set(i, nodes[tour.get(i)]);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	public double method(int[] route, DistanceTable table) {
+		return this.method(route, table, this.candidateCache.get(table));
+	}
+
+	public double method(int[] route, DistanceTable table, CandidateList candidates) {
+		Tour tour = this.factory.create(route);
+		double delta = this.method(tour, table, candidates);
+		if (delta < 0) {
+			System.arraycopy(tour.toArray(), 0, route, 0, route.length);
+		}
+		return delta;
+	}
+
+	public double method(Tour tour, DistanceTable table) {
+		return this.method(tour, table, this.candidateCache.get(table));
+	}
+
+	/**
+	 * 局所最適解まで改善した後、指定した時間が経過するまで摂動と局所探索を繰り返します。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(Tour tour, DistanceTable table, CandidateList candidates) {
+		return this.method(tour, table, candidates, System.nanoTime() + this.time * 1000000L);
+	}
+
+	/**
+	 * 局所最適解まで改善した後、指定した時刻まで摂動と局所探索を繰り返します。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @param deadline 探索を終える時刻（System.nanoTime()の値）
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	double method(Tour tour, DistanceTable table, CandidateList candidates, long deadline) {
+		double delta = this.opt.method(tour, table, candidates);
+		return delta + this.perturb(tour, table, candidates, deadline);
+	}
+
+	/**
+	 * 局所最適解の巡回路に、指定した時刻まで摂動と局所探索を繰り返します。
+	 * @param tour 局所最適解の巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @param deadline 探索を終える時刻（System.nanoTime()の値）
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	double perturb(Tour tour, DistanceTable table, CandidateList candidates, long deadline) {
+		int length = tour.size();
+		if (length < 8) {
+			return 0;
+		}
+		UndoableTour undoable = new UndoableTour(tour);
+		// 区間の長さは、3つの区間と前後の頂点が重ならないように制限します。
+		int max = Math.min(this.segment, (length - 2) / 3);
+		int[] kicked = new int[8];
+		double delta = 0;
+		while (System.nanoTime() - deadline < 0) {
+			double gain = this.kick(undoable, table, kicked, max);
+			gain -= this.opt.method(undoable, table, candidates, kicked, kicked.length);
+			if (gain > EPSILON) {
+				delta -= gain;
+				undoable.commit();
+			} else {
+				undoable.rollback();
+			}
+		}
+		return delta;
+	}
+
+	/**
+	 * double bridgeの摂動を加えます。
+	 * 巡回路をs0 [a1..a2] [b1..b2] [c1..c2] s4と表すと、4本の辺をつなぎ替えてs0 [c1..c2] [b1..b2] [a1..a2] s4にします。
+	 * いずれの区間も向きを変えないため、1回の3-Optの交換では元に戻せません。
+	 * 反転の記録で元に戻せるように、4回の2-Optの交換として適用します。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 * @param kicked 摂動で変更した辺の端点を格納する配列
+	 * @param max 区間の最大の長さ
+	 * @return 巡回路の長さの減少量、長くなれば負の値
+	 */
+	private double kick(Tour tour, DistanceTable table, int[] kicked, int max) {
+		int s0 = this.rand.nextInt(tour.size());
+		int a1 = tour.next(s0);
+		int a2 = this.advance(tour, a1, max);
+		int b1 = tour.next(a2);
+		int b2 = this.advance(tour, b1, max);
+		int c1 = tour.next(b2);
+		int c2 = this.advance(tour, c1, max);
+		int s4 = tour.next(c2);
+		double gain = table.get(s0, a1) + table.get(a2, b1) + table.get(b2, c1) + table.get(c2, s4)
+				- table.get(s0, c1) - table.get(c2, b1) - table.get(b2, a1) - table.get(a2, s4);
+		// 3つの区間をまとめて反転してs0 [c2..c1] [b2..b1] [a2..a1] s4にした後、区間ごとに反転して向きを戻します。
+		TspBase.exchange(tour, s0, a1, c2, s4);
+		TspBase.exchange(tour, s0, c2, c1, b2);
+		TspBase.exchange(tour, c2, b2, b1, a2);
+		TspBase.exchange(tour, b2, a2, a1, s4);
+		kicked[0] = s0;
+		kicked[1] = a1;
+		kicked[2] = a2;
+		kicked[3] = b1;
+		kicked[4] = b2;
+		kicked[5] = c1;
+		kicked[6] = c2;
+		kicked[7] = s4;
+		return gain;
+	}
+
+	/**
+	 * 巡回路の向きに、最大の長さ未満のランダムな数だけ進めた頂点を返します。
+	 * @param tour 巡回路
+	 * @param node 区間の始点
+	 * @param max 区間の最大の長さ
+	 * @return 区間の終点
+	 */
+	private int advance(Tour tour, int node, int max) {
+		for (int i = this.rand.nextInt(max); i > 0; i--) {
+			node = tour.next(node);
+		}
+		return node;
+	}
+
+	@Override
+	public String toString() {
+		return "Iterated Local Search";
+	}
+}
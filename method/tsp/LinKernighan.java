@@ -0,0 +1,447 @@
+package method.tsp;
+
+import java.util.List;
+import model.Node;
+import model.Tour;
+import model.TourFactory;
+
+
+/**
+ * Lin-Kernighanの手法による巡回セールスマン問題の改善法です。
+ * 頂点t1と隣接する頂点t2の辺を取り除き、t2の候補t3への辺を加え、t3に隣接する辺(t3, t4)を取り除く
+ * 2-Optの交換を、t4を新たなt2として可変の深さまで連続して行います。
+ * 部分利得が正である候補のみを評価し、閉路にしたときの利得が最大となる深さまでの交換を採用します。
+ * 最初の2段階では複数の候補を試し、それより深い段階では最も有望な候補のみを試します。
+ * 探索する頂点はdon't look bitのキューで管理し、交換により隣接する頂点が変わった頂点のみを再び探索します。
+ * @author ma38su
+ */
+public class LinKernighan implements TspImprovement {
+
+	/**
+	 * 改善とみなす最小の変化量
+	 */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * 候補近傍リストの頂点あたりの候補の数
+	 */
+	private static final int CANDIDATES = 8;
+
+	/**
+	 * 段階ごとに試す候補の数、これより深い段階では1つの候補のみを試します。
+	 */
+	private static final int[] BREADTH = {5, 3};
+
+	/**
+	 * 交換の最大の深さ
+	 */
+	private final int depth;
+
+	/**
+	 * 配列で与えられた巡回路の表現を選ぶファクトリ
+	 */
+	private final TourFactory factory;
+
+	/**
+	 * 距離テーブルごとに作成した候補近傍リスト
+	 */
+	private final CandidateCache candidateCache = new CandidateCache(CANDIDATES);
+
+	/**
+	 * 探索中の巡回路
+	 */
+	private Tour tour;
+
+	/**
+	 * 探索中の距離テーブル
+	 */
+	private DistanceTable table;
+
+	/**
+	 * 探索中の候補近傍リスト
+	 */
+	private CandidateList candidates;
+
+	/**
+	 * 行った交換で加えた辺の端点t2、t3と、取り除いた辺の端点t4
+	 */
+	private final int[] moves;
+
+	/**
+	 * 行った交換の数
+	 */
+	private int size;
+
+	/**
+	 * 閉路にしたときの最大の利得
+	 */
+	private double bestGain;
+
+	/**
+	 * 最大の利得となる交換の数
+	 */
+	private int bestSize;
+
+	/**
+	 * 段階ごとの候補t3
+	 */
+	private final int[][] alternatives;
+
+	/**
+	 * 段階ごとの候補の評価値
+	 */
+	private final double[][] values;
+
+	/**
+	 * 探索する頂点のキュー、キューに含まれない頂点のdon't look bitが立っています。
+	 */
+	private int[] queue;
+
+	/**
+	 * キューに含まれる頂点
+	 */
+	private boolean[] isQueued;
+
+	/**
+	 * キューの先頭の位置
+	 */
+	private int head;
+
+	/**
+	 * キューに含まれる頂点の数
+	 */
+	private int count;
+
+	/**
+	 * コンストラクタ
+	 */
+	public LinKernighan() {
+		this(50);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param depth 交換の最大の深さ
+	 */
+	public LinKernighan(int depth) {
+		this(depth, new TourFactory());
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param depth 交換の最大の深さ
+	 * @param factory 配列で与えられた巡回路の表現を選ぶファクトリ
+	 */
+	public LinKernighan(int depth, TourFactory factory) {
+		this.depth = depth;
+		this.factory = factory;
+		this.moves = new int[3 * depth];
+		this.alternatives = new int[BREADTH.length][];
+		this.values = new double[BREADTH.length][];
+		for (int i = 0; i < BREADTH.length; i++) {
+			this.alternatives[i] = new int[BREADTH[i]];
+			this.values[i] = new double[BREADTH[i]];
+		}
+	}
+
+	public boolean method(List<Node> route) {
+		Node[] nodes = route.toArray(new Node[]{});
+		int[] order = new int[nodes.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Tour tour = this.factory.create(order);
+		if (this.method(tour, new CoordinateDistanceTable(nodes)) < 0) {
+			for (int i = 0; i < nodes.length; i++) {
+				route.set(i, nodes[tour.get(i)]);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	public double method(int[] route, DistanceTable table) {
+		return this.method(route, table, this.candidateCache.get(table));
+	}
+
+	public double method(int[] route, DistanceTable table, CandidateList candidates) {
+		Tour tour = this.factory.create(route);
+		double delta = this.method(tour, table, candidates);
+		if (delta < 0) {
+			System.arraycopy(tour.toArray(), 0, route, 0, route.length);
+		}
+		return delta;
+	}
+
+	public double method(Tour tour, DistanceTable table) {
+		return this.method(tour, table, this.candidateCache.get(table));
+	}
+
+	/**
+	 * 局所最適解まで改善します。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(Tour tour, DistanceTable table, CandidateList candidates) {
+		int length = tour.size();
+		if (length < 5) {
+			return 0;
+		}
+		this.prepare(length);
+		int node = tour.get(0);
+		for (int i = 0; i < length; i++) {
+			this.count = TspBase.enqueue(this.queue, this.isQueued, this.head, this.count, node);
+			node = tour.next(node);
+		}
+		return this.search(tour, table, candidates);
+	}
+
+	/**
+	 * 指定した頂点のみのdon't look bitを外し、局所最適解まで改善します。
+	 * 巡回路の一部を変更した後に、変更した辺の端点の周辺のみを探索するため、
+	 * 探索する頂点の数に比例する時間で実行できます。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @param nodes 探索する頂点
+	 * @param size 探索する頂点の数
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	double method(Tour tour, DistanceTable table, CandidateList candidates, int[] nodes, int size) {
+		int length = tour.size();
+		if (length < 5) {
+			return 0;
+		}
+		this.prepare(length);
+		for (int i = 0; i < size; i++) {
+			this.count = TspBase.enqueue(this.queue, this.isQueued, this.head, this.count, nodes[i]);
+		}
+		return this.search(tour, table, candidates);
+	}
+
+	/**
+	 * 探索する頂点のキューを、頂点の数に合わせて確保します。
+	 * キューは探索の終了時に空になるため、頂点の数が同じであれば再利用します。
+	 * @param length 頂点の数
+	 */
+	private void prepare(int length) {
+		if (this.queue == null || this.queue.length != length) {
+			this.queue = new int[length];
+			this.isQueued = new boolean[length];
+		}
+		this.head = 0;
+		this.count = 0;
+	}
+
+	/**
+	 * キューの頂点を順に始点として交換を探索し、キューが空になるまで改善します。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	private double search(Tour tour, DistanceTable table, CandidateList candidates) {
+		this.tour = tour;
+		this.table = table;
+		this.candidates = candidates;
+		int[] queue = this.queue;
+		boolean[] isQueued = this.isQueued;
+		int length = queue.length;
+		int head = this.head;
+		int count = this.count;
+		double delta = 0;
+		while (count > 0) {
+			int t1 = queue[head];
+			head = (head + 1) % length;
+			count--;
+			isQueued[t1] = false;
+			for (int side = 0; side < 2; side++) {
+				int t2 = side == 0 ? tour.next(t1) : tour.prev(t1);
+				this.size = 0;
+				this.bestGain = 0;
+				this.bestSize = 0;
+				if (this.step(0, table.get(t1, t2), t1, t2)) {
+					// 利得が最大となる深さより後の交換を取り消します。
+					while (this.size > this.bestSize) {
+						this.undo(t1);
+					}
+					delta -= this.bestGain;
+					// 端点の変わった頂点のdon't look bitを外します。
+					count = TspBase.enqueue(queue, isQueued, head, count, t1);
+					count = TspBase.enqueue(queue, isQueued, head, count, t2);
+					for (int i = 0; i < 3 * this.bestSize; i++) {
+						count = TspBase.enqueue(queue, isQueued, head, count, this.moves[i]);
+					}
+					break;
+				}
+			}
+		}
+		this.head = head;
+		this.count = count;
+		this.tour = null;
+		this.table = null;
+		this.candidates = null;
+		return delta;
+	}
+
+	/**
+	 * 辺(t1, t2)が取り除かれた状態から、t2と候補t3の辺を加えて2-Optの交換を行い、再帰的に深い交換を探索します。
+	 * @param level 段階
+	 * @param gain 取り除いた辺と加えた辺の長さの差（閉路にする辺を除く）
+	 * @param t1 始点
+	 * @param t2 取り除いた辺の端点
+	 * @return 閉路にしたときに改善できる交換が見つかればtrue
+	 */
+	private boolean step(int level, double gain, int t1, int t2) {
+		Tour tour = this.tour;
+		DistanceTable table = this.table;
+		int breadth = level < BREADTH.length ? BREADTH[level] : 1;
+		int[] alternative = level < BREADTH.length ? this.alternatives[level] : null;
+		double[] value = level < BREADTH.length ? this.values[level] : null;
+		boolean isForward = tour.next(t1) == t2;
+		int succ = tour.next(t2);
+		int pred = tour.prev(t2);
+		int[] neighbors = this.candidates.getNeighbors();
+
+		// 部分利得が正の候補を、取り除く辺の長さを考慮した評価値の大きい順に選びます。
+		int count = 0;
+		int best = -1;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int l = this.candidates.begin(t2), end = this.candidates.end(t2); l < end; l++) {
+			int t3 = neighbors[l];
+			double g1 = gain - table.get(t2, t3);
+			if (g1 <= EPSILON) {
+				break;
+			}
+			if (t3 == t1 || t3 == succ || t3 == pred) {
+				continue;
+			}
+			int t4 = isForward ? tour.prev(t3) : tour.next(t3);
+			if (this.isAdded(t3, t4) || this.isRemoved(t2, t3)) {
+				continue;
+			}
+			double v = table.get(t3, t4) - table.get(t2, t3);
+			if (alternative == null) {
+				if (v > bestValue) {
+					bestValue = v;
+					best = t3;
+				}
+			} else {
+				if (count == breadth && value[breadth - 1] >= v) {
+					continue;
+				}
+				// 挿入ソートで評価値の大きい順に並べます。
+				int i = count < breadth ? count++ : breadth - 1;
+				while (i > 0 && value[i - 1] < v) {
+					alternative[i] = alternative[i - 1];
+					value[i] = value[i - 1];
+					i--;
+				}
+				alternative[i] = t3;
+				value[i] = v;
+			}
+		}
+		if (alternative == null) {
+			if (best < 0) {
+				return false;
+			}
+			return this.apply(level, gain, t1, t2, best);
+		}
+		for (int i = 0; i < count; i++) {
+			if (this.apply(level, gain, t1, t2, alternative[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * t2とt3の辺を加える2-Optの交換を行い、より深い交換を探索します。
+	 * 改善できる交換が見つからなければ、交換を取り消します。
+	 * @param level 段階
+	 * @param gain 取り除いた辺と加えた辺の長さの差（閉路にする辺を除く）
+	 * @param t1 始点
+	 * @param t2 取り除いた辺の端点
+	 * @param t3 加える辺の端点
+	 * @return 閉路にしたときに改善できる交換が見つかればtrue
+	 */
+	private boolean apply(int level, double gain, int t1, int t2, int t3) {
+		Tour tour = this.tour;
+		DistanceTable table = this.table;
+		int t4 = tour.next(t1) == t2 ? tour.prev(t3) : tour.next(t3);
+		// 辺(t1, t2)、(t4, t3)を辺(t1, t4)、(t2, t3)に置き換えます。
+		TspBase.exchange(tour, t1, t2, t4, t3);
+		this.moves[3 * this.size] = t2;
+		this.moves[3 * this.size + 1] = t3;
+		this.moves[3 * this.size + 2] = t4;
+		this.size++;
+		double g = gain - table.get(t2, t3) + table.get(t3, t4);
+		double closed = g - table.get(t4, t1);
+		if (closed > this.bestGain + EPSILON) {
+			this.bestGain = closed;
+			this.bestSize = this.size;
+		}
+		if (this.size < this.depth) {
+			this.step(level + 1, g, t1, t4);
+		}
+		if (this.bestSize > 0) {
+			return true;
+		}
+		this.undo(t1);
+		return false;
+	}
+
+	/**
+	 * 最後に行った2-Optの交換を取り消します。
+	 * @param t1 始点
+	 */
+	private void undo(int t1) {
+		this.size--;
+		int t2 = this.moves[3 * this.size];
+		int t3 = this.moves[3 * this.size + 1];
+		int t4 = this.moves[3 * this.size + 2];
+		// 辺(t1, t4)、(t2, t3)を辺(t1, t2)、(t4, t3)に戻します。
+		TspBase.exchange(this.tour, t1, t4, t2, t3);
+	}
+
+	/**
+	 * 辺が交換で加えた辺であるか確認します。
+	 * @param a 端点
+	 * @param b 端点
+	 * @return 加えた辺であればtrue
+	 */
+	private boolean isAdded(int a, int b) {
+		for (int i = 0; i < this.size; i++) {
+			int t2 = this.moves[3 * i];
+			int t3 = this.moves[3 * i + 1];
+			if ((t2 == a && t3 == b) || (t2 == b && t3 == a)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 辺が交換で取り除いた辺であるか確認します。
+	 * @param a 端点
+	 * @param b 端点
+	 * @return 取り除いた辺であればtrue
+	 */
+	private boolean isRemoved(int a, int b) {
+		for (int i = 0; i < this.size; i++) {
+			int t3 = this.moves[3 * i + 1];
+			int t4 = this.moves[3 * i + 2];
+			if ((t3 == a && t4 == b) || (t3 == b && t4 == a)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "Lin-Kernighan";
+	}
+}
@@ -0,0 +1,333 @@
+package method.tsp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import model.Node;
+
+
+/**
+ * ファイルに保存した距離テーブルをメモリマップで読み込む距離テーブルです。
+ * 距離は上三角行列として行ごとに連続に保存し、読み込むときはファイルを読み取り専用でマップするため、
+ * 距離テーブルを作り直す手間もヒープの消費もなく、同じ問題を繰り返し解くときに起動の手間を省けます。
+ * ファイルは先頭に識別子、版、頂点の数、距離のバイト数、頂点の座標のSHA-256のダイジェストを格納し、
+ * 距離はリトルエンディアンの単精度または倍精度で格納します。
+ * マップの大きさの上限を超えないように、ファイルは一定の大きさの区間に分けてマップします。
+ * 保存するときは同じディレクトリの一時ファイルに書き込んでから置き換えるため、既にマップしているファイルを書き換えません。
+ * @author ma38su
+ */
+public class MappedDistanceTable implements DistanceTable {
+
+	/**
+	 * ファイルの識別子
+	 */
+	private static final int MAGIC = 0x54535044;
+
+	/**
+	 * ファイルの版
+	 */
+	private static final int VERSION = 2;
+
+	/**
+	 * ヘッダのバイト数
+	 */
+	private static final int HEADER = 48;
+
+	/**
+	 * 頂点の座標のダイジェストのバイト数
+	 */
+	private static final int DIGEST = 32;
+
+	/**
+	 * 1つの区間に含める距離の数の2の対数
+	 */
+	private static final int CHUNK_SHIFT = 27;
+
+	/**
+	 * 区間内の位置を求めるマスク
+	 */
+	private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+	/**
+	 * 頂点の数
+	 */
+	private final int size;
+
+	/**
+	 * 頂点iの行の開始位置からi + 1を引いた位置、頂点i、j（i < j）の距離はoffsets[i] + jに格納します。
+	 */
+	private final long[] offsets;
+
+	/**
+	 * 単精度で格納した距離の区間、倍精度で格納する場合はnull
+	 */
+	private final FloatBuffer[] floats;
+
+	/**
+	 * 倍精度で格納した距離の区間、単精度で格納する場合はnull
+	 */
+	private final DoubleBuffer[] doubles;
+
+	/**
+	 * コンストラクタ
+	 * @param size 頂点の数
+	 * @param floats 単精度で格納した距離の区間
+	 * @param doubles 倍精度で格納した距離の区間
+	 */
+	private MappedDistanceTable(int size, FloatBuffer[] floats, DoubleBuffer[] doubles) {
+		this.size = size;
+		this.floats = floats;
+		this.doubles = doubles;
+		this.offsets = MappedDistanceTable.getOffsets(size);
+	}
+
+	/**
+	 * 頂点の座標から求めた距離テーブルをファイルに保存します。
+	 * 行ごとに距離を求めて書き込むため、距離テーブル全体をメモリに保持しません。
+	 * 同じディレクトリの一時ファイルに書き込んでから置き換えるため、書き込みに失敗しても元のファイルは残ります。
+	 * @param file 保存するファイル
+	 * @param nodes 頂点配列
+	 * @param isFloat 単精度で保存する場合はtrue
+	 * @throws IOException 書き込みに失敗した場合
+	 */
+	public static void write(File file, Node[] nodes, boolean isFloat) throws IOException {
+		int n = nodes.length;
+		CoordinateDistanceTable table = new CoordinateDistanceTable(nodes);
+		int bytes = isFloat ? 4 : 8;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(HEADER, n * bytes)).order(ByteOrder.LITTLE_ENDIAN);
+		float[] floatRow = isFloat ? new float[n] : null;
+		double[] doubleRow = isFloat ? null : new double[n];
+		File parent = file.getAbsoluteFile().getParentFile();
+		File temp = File.createTempFile(file.getName(), ".tmp", parent);
+		boolean isWritten = false;
+		RandomAccessFile out = new RandomAccessFile(temp, "rw");
+		try {
+			FileChannel channel = out.getChannel();
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(bytes).put(MappedDistanceTable.digest(nodes));
+			buffer.flip();
+			MappedDistanceTable.write(channel, buffer);
+			for (int i = 0; i < n - 1; i++) {
+				int length = n - i - 1;
+				buffer.clear();
+				if (isFloat) {
+					table.getRow(i, i + 1, n, floatRow, 0);
+					buffer.asFloatBuffer().put(floatRow, 0, length);
+				} else {
+					table.getRow(i, i + 1, n, doubleRow, 0);
+					buffer.asDoubleBuffer().put(doubleRow, 0, length);
+				}
+				buffer.limit(length * bytes);
+				MappedDistanceTable.write(channel, buffer);
+			}
+			channel.force(false);
+			isWritten = true;
+		} finally {
+			out.close();
+			if (!isWritten) {
+				temp.delete();
+			}
+		}
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			temp.delete();
+			throw e;
+		}
+	}
+
+	/**
+	 * バッファの残りをすべて書き込みます。
+	 * @param channel チャネル
+	 * @param buffer バッファ
+	 * @throws IOException 書き込みに失敗した場合
+	 */
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * ファイルに保存した距離テーブルを読み取り専用でマップします。
+	 * @param file 保存したファイル
+	 * @return 距離テーブル
+	 * @throws IOException ファイルの形式が正しくないか、読み込みに失敗した場合
+	 */
+	public static MappedDistanceTable open(File file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			ByteBuffer header = MappedDistanceTable.readHeader(channel, file);
+			int n = header.getInt(8);
+			int bytes = header.getInt(12);
+			long count = (long) n * (n - 1) / 2;
+			if (channel.size() != HEADER + count * bytes) {
+				throw new IOException("broken file: " + file);
+			}
+			int chunks = (int) ((count + CHUNK_MASK) >>> CHUNK_SHIFT);
+			FloatBuffer[] floats = bytes == 4 ? new FloatBuffer[chunks] : null;
+			DoubleBuffer[] doubles = bytes == 8 ? new DoubleBuffer[chunks] : null;
+			for (int k = 0; k < chunks; k++) {
+				long first = (long) k << CHUNK_SHIFT;
+				long length = Math.min(count - first, 1L << CHUNK_SHIFT);
+				MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + first * bytes, length * bytes);
+				map.order(ByteOrder.LITTLE_ENDIAN);
+				if (floats != null) {
+					floats[k] = map.asFloatBuffer();
+				} else {
+					doubles[k] = map.asDoubleBuffer();
+				}
+			}
+			// マップはチャネルを閉じた後も有効です。
+			return new MappedDistanceTable(n, floats, doubles);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * ファイルのヘッダを読み込み、形式を確認します。
+	 * @param channel チャネル
+	 * @param file 保存したファイル
+	 * @return ヘッダ
+	 * @throws IOException ファイルの形式が正しくないか、読み込みに失敗した場合
+	 */
+	private static ByteBuffer readHeader(FileChannel channel, File file) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				throw new IOException("broken header: " + file);
+			}
+		}
+		header.flip();
+		int n = header.getInt(4) == VERSION && header.getInt(0) == MAGIC ? header.getInt(8) : -1;
+		int bytes = header.getInt(12);
+		if (n < 0 || (bytes != 4 && bytes != 8)) {
+			throw new IOException("unknown format: " + file);
+		}
+		return header;
+	}
+
+	/**
+	 * ファイルが頂点配列の距離テーブルを指定した精度で保存しているか確認します。
+	 * 距離を読み込む前にヘッダのみを比較するため、一致しないファイルはマップしません。
+	 * @param file 保存したファイル
+	 * @param nodes 頂点配列
+	 * @param isFloat 単精度で保存する場合はtrue
+	 * @return 頂点の数、座標のダイジェスト、精度がすべて一致すればtrue
+	 * @throws IOException ファイルの形式が正しくないか、読み込みに失敗した場合
+	 */
+	private static boolean matches(File file, Node[] nodes, boolean isFloat) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			ByteBuffer header = MappedDistanceTable.readHeader(in.getChannel(), file);
+			if (header.getInt(8) != nodes.length || header.getInt(12) != (isFloat ? 4 : 8)) {
+				return false;
+			}
+			byte[] digest = new byte[DIGEST];
+			header.position(HEADER - DIGEST);
+			header.get(digest);
+			return MessageDigest.isEqual(digest, MappedDistanceTable.digest(nodes));
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * 頂点配列の距離テーブルをファイルから読み込みます。
+	 * ファイルがないか、保存した距離テーブルの頂点の数、座標のダイジェスト、精度が異なれば、保存し直してから読み込みます。
+	 * @param file 保存するファイル
+	 * @param nodes 頂点配列
+	 * @param isFloat 単精度で保存する場合はtrue
+	 * @return 距離テーブル
+	 * @throws IOException 読み込みまたは書き込みに失敗した場合
+	 */
+	public static MappedDistanceTable load(File file, Node[] nodes, boolean isFloat) throws IOException {
+		if (file.exists()) {
+			try {
+				if (MappedDistanceTable.matches(file, nodes, isFloat)) {
+					return MappedDistanceTable.open(file);
+				}
+			} catch (IOException e) {
+				// 形式が正しくないファイルは保存し直します。
+			}
+		}
+		MappedDistanceTable.write(file, nodes, isFloat);
+		return MappedDistanceTable.open(file);
+	}
+
+	/**
+	 * 頂点の座標のSHA-256のダイジェストを求めます。
+	 * @param nodes 頂点配列
+	 * @return ダイジェスト
+	 */
+	private static byte[] digest(Node[] nodes) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256はすべてのJava実行環境で利用できます。
+			throw new IllegalStateException(e);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(8 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+		for (Node node : nodes) {
+			if (buffer.remaining() < 8) {
+				digest.update(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			}
+			buffer.putInt(node.getX()).putInt(node.getY());
+		}
+		digest.update(buffer.array(), 0, buffer.position());
+		return digest.digest();
+	}
+
+	/**
+	 * 行の開始位置を求めます。
+	 * @param n 頂点の数
+	 * @return 頂点iの行の開始位置からi + 1を引いた位置
+	 */
+	private static long[] getOffsets(int n) {
+		long[] offsets = new long[n];
+		long offset = 0;
+		for (int i = 0; i < n; i++) {
+			offsets[i] = offset - i - 1;
+			offset += n - i - 1;
+		}
+		return offsets;
+	}
+
+	/**
+	 * 単精度で格納しているか判定します。
+	 * @return 単精度で格納していればtrue
+	 */
+	public boolean isFloat() {
+		return this.floats != null;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public double get(int i, int j) {
+		if (i == j) {
+			return 0;
+		}
+		long index = i < j ? this.offsets[i] + j : this.offsets[j] + i;
+		int chunk = (int) (index >>> CHUNK_SHIFT);
+		int position = (int) (index & CHUNK_MASK);
+		if (this.floats != null) {
+			return this.floats[chunk].get(position);
+		}
+		return this.doubles[chunk].get(position);
+	}
+}
@@ -2,48 +2,72 @@ package method.tsp;
 
 import gui.DemoPanel;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 import model.Node;
 
 
 /**
  * nearest additionによる巡回セールスマン問題の構築法です。
+ * Primの最小スパニング木と同様に、未訪問の頂点ごとに巡回路上の最も近い頂点を保持し、
+ * 頂点を追加するたびに追加した頂点との距離のみで更新します。O(n^2)で実行します。
  * @author ma38su
  */
 public class NearestAddition implements TspConstruction {
 	public List<Node> method(DemoPanel panel) {
-		Set<Node> nodes = new HashSet<Node>(panel.getNodes());
-		List<Node> route = new ArrayList<Node>(nodes.size() + 1);
-		Iterator<Node> itr = nodes.iterator();
-		if (itr.hasNext()) {
-			Node node = itr.next();
-			int insertion = 0;
-			while (!nodes.isEmpty()) {
-				route.add(insertion, node);
-				if (nodes.remove(node) && nodes.isEmpty()) {
-					break;
+		Node[] nodes = panel.getNodes().toArray(new Node[]{});
+		List<Node> route = new ArrayList<Node>(nodes.length + 1);
+		int n = nodes.length;
+		if (n > 0) {
+			// 巡回路を連結リストで表現します。
+			int[] next = new int[n];
+			int[] prev = new int[n];
+			// 巡回路上の最も近い頂点までの距離、巡回路上の頂点であれば負
+			double[] nearestDist = new double[n];
+			// 巡回路上の最も近い頂点
+			int[] nearestTourNode = new int[n];
+			int start = 0;
+			next[start] = start;
+			prev[start] = start;
+			nearestDist[start] = -1;
+			for (int i = 0; i < n; i++) {
+				if (i != start) {
+					nearestDist[i] = nodes[start].getDistance(nodes[i]);
+					nearestTourNode[i] = start;
 				}
-				panel.set(route);
-				Node nearest = null;
-				insertion = -1;
+			}
+			int step = Math.max(1, n / TspBase.FRAMES);
+			for (int size = 1; size < n; size++) {
+				if (size % step == 0) {
+					panel.set(TspBase.toList(nodes, next, start, size, route));
+				}
+				int node = -1;
 				double min = Double.POSITIVE_INFINITY;
-				for (int i = 0; i < route.size(); i++) {
-					Node s = route.get(i);
-					for (Node t : nodes) {
-						double distance = s.getDistance(t);
-						if (min > distance) {
-							min = distance;
-							insertion = i;
-							nearest = t;
+				for (int i = 0; i < n; i++) {
+					if (nearestDist[i] >= 0 && min > nearestDist[i]) {
+						min = nearestDist[i];
+						node = i;
+					}
+				}
+				assert node != -1;
+				// 巡回路上の最も近い頂点の前に挿入します。
+				int t = nearestTourNode[node];
+				int s = prev[t];
+				next[s] = node;
+				prev[node] = s;
+				next[node] = t;
+				prev[t] = node;
+				nearestDist[node] = -1;
+				for (int i = 0; i < n; i++) {
+					if (nearestDist[i] >= 0) {
+						double distance = nodes[node].getDistance(nodes[i]);
+						if (nearestDist[i] > distance) {
+							nearestDist[i] = distance;
+							nearestTourNode[i] = node;
 						}
 					}
 				}
-				assert insertion != -1 && nearest != null;
-				node = nearest;
 			}
+			TspBase.toList(nodes, next, start, n, route);
 		}
 		return route;
 	}
@@ -2,49 +2,228 @@ package method.tsp;
 
 import gui.DemoPanel;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import model.Node;
+import util.KdTree;
 
 
 /**
  * nearest neighborによる巡回セールスマン問題の構築法です。
+ * 未訪問の頂点をk-d木で管理し、最近傍の頂点をO(log n)で求めます。
+ * 複数の開始点を指定した場合は、ForkJoinPoolで並列に巡回路を求め、最も短い巡回路を採用します。
+ * 各ワーカーは木の構造と座標を共有し、訪問済みのビット集合のみを個別に持ちます。
  * @author ma38su
  */
 public class NearestNeighbor implements TspConstruction {
+
+	/**
+	 * 開始点の数、0以下であればすべての頂点
+	 */
+	private final int starts;
+
+	/**
+	 * 開始点を選ぶ乱数のシード
+	 */
+	private final long seed;
+
+	/**
+	 * コンストラクタ
+	 * 頂点0のみを開始点とします。
+	 */
+	public NearestNeighbor() {
+		this(1, 0);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param starts 開始点の数、0以下であればすべての頂点
+	 * @param seed 開始点を選ぶ乱数のシード
+	 */
+	public NearestNeighbor(int starts, long seed) {
+		this.starts = starts;
+		this.seed = seed;
+	}
+
 	public List<Node> method(DemoPanel panel) {
-		Set<Node> nodes = new HashSet<Node>(panel.getNodes());
-		List<Node> route = new ArrayList<Node>(nodes.size() + 1);
-		Iterator<Node> itr = nodes.iterator();
-		if (itr.hasNext()) {
-			Node start = itr.next();
-			Node node = start;
-			while (!nodes.isEmpty()) {
-				route.add(node);
-				if (nodes.remove(node) && nodes.isEmpty()) {
-					break;
-				}
-				panel.set(route);
-				Node tmp = null;
-				double min = Double.POSITIVE_INFINITY;
-				for (Node terminal : nodes) {
-					double distance = node.getDistance(terminal);
-					if (min > distance) {
-						min = distance;
-						tmp = terminal;
+		Node[] nodes = panel.getNodes().toArray(new Node[]{});
+		List<Node> route = new ArrayList<Node>(nodes.length + 1);
+		if (nodes.length > 0) {
+			int[] xs = new int[nodes.length];
+			int[] ys = new int[nodes.length];
+			for (int i = 0; i < nodes.length; i++) {
+				xs[i] = nodes[i].getX();
+				ys[i] = nodes[i].getY();
+			}
+			KdTree tree = new KdTree(xs, ys);
+			if (this.starts == 1) {
+				int step = Math.max(1, nodes.length / TspBase.FRAMES);
+				int node = 0;
+				while (true) {
+					route.add(nodes[node]);
+					tree.remove(node);
+					if (tree.size() == 0) {
+						break;
+					}
+					if (route.size() % step == 0) {
+						panel.set(route);
 					}
+					node = tree.nearest(xs[node], ys[node]);
+					assert node >= 0;
+				}
+			} else {
+				int[] candidates = NearestNeighbor.selectStarts(nodes.length, this.starts, this.seed);
+				Result result = ForkJoinPool.commonPool().invoke(new Search(tree, xs, ys, candidates, 0, candidates.length));
+				for (int i : result.order) {
+					route.add(nodes[i]);
 				}
-				assert tmp != null;
-				node = tmp;
 			}
 		}
 		return route;
 	}
 
+	/**
+	 * 開始点を選びます。
+	 * 同じシードであれば同じ開始点を同じ順に返します。
+	 * @param n 頂点の数
+	 * @param starts 開始点の数、0以下であればすべての頂点
+	 * @param seed 乱数のシード
+	 * @return 開始点
+	 */
+	static int[] selectStarts(int n, int starts, long seed) {
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		if (starts <= 0 || starts >= n) {
+			return order;
+		}
+		// 部分的なFisher-Yatesのシャッフルで、重複なく開始点を選びます。
+		Random rand = new Random(seed);
+		for (int i = 0; i < starts; i++) {
+			int j = i + rand.nextInt(n - i);
+			int tmp = order[i];
+			order[i] = order[j];
+			order[j] = tmp;
+		}
+		int[] result = new int[starts];
+		System.arraycopy(order, 0, result, 0, starts);
+		return result;
+	}
+
+	/**
+	 * 開始点から巡回路を求めます。
+	 * @param tree 未訪問の頂点のk-d木、呼び出し後はすべての頂点が削除されます
+	 * @param xs X座標
+	 * @param ys Y座標
+	 * @param start 開始点
+	 * @param order 巡回路を格納する配列
+	 * @return 巡回路の長さ
+	 */
+	static double construct(KdTree tree, int[] xs, int[] ys, int start, int[] order) {
+		int n = order.length;
+		double length = 0;
+		int node = start;
+		for (int i = 0; i < n; i++) {
+			order[i] = node;
+			tree.remove(node);
+			int next = i + 1 < n ? tree.nearest(xs[node], ys[node]) : start;
+			double dx = xs[node] - xs[next];
+			double dy = ys[node] - ys[next];
+			length += Math.sqrt(dx * dx + dy * dy);
+			node = next;
+		}
+		return length;
+	}
+
+	/**
+	 * 開始点ごとの探索結果
+	 */
+	static class Result {
+		/**
+		 * 開始点の配列のインデックス
+		 */
+		final int index;
+
+		/**
+		 * 巡回路
+		 */
+		final int[] order;
+
+		/**
+		 * 巡回路の長さ
+		 */
+		final double length;
+
+		Result(int index, int[] order, double length) {
+			this.index = index;
+			this.order = order;
+			this.length = length;
+		}
+
+		/**
+		 * 短い巡回路を返します。長さが等しければ開始点のインデックスが小さい方を返すため、
+		 * 結果はスレッドの実行順によりません。
+		 * @param other 比較する探索結果
+		 * @return 短い巡回路の探索結果
+		 */
+		Result min(Result other) {
+			if (other.length < this.length || (other.length == this.length && other.index < this.index)) {
+				return other;
+			}
+			return this;
+		}
+	}
+
+	/**
+	 * 開始点の区間[lo, hi)を分割して並列に探索するタスク
+	 */
+	static class Search extends RecursiveTask<Result> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final KdTree tree;
+		private final int[] xs;
+		private final int[] ys;
+		private final int[] starts;
+		private final int lo;
+		private final int hi;
+
+		Search(KdTree tree, int[] xs, int[] ys, int[] starts, int lo, int hi) {
+			this.tree = tree;
+			this.xs = xs;
+			this.ys = ys;
+			this.starts = starts;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected Result compute() {
+			if (this.hi - this.lo > 1) {
+				int mid = (this.lo + this.hi) >>> 1;
+				Search left = new Search(this.tree, this.xs, this.ys, this.starts, this.lo, mid);
+				Search right = new Search(this.tree, this.xs, this.ys, this.starts, mid, this.hi);
+				left.fork();
+				Result result = right.compute();
+				return left.join().min(result);
+			}
+			int[] order = new int[this.xs.length];
+			double length = NearestNeighbor.construct(new KdTree(this.tree), this.xs, this.ys, this.starts[this.lo], order);
+			return new Result(this.lo, order, length);
+		}
+	}
+
 	@Override
 	public String toString() {
-		return "nearest neighbor";
+		if (this.starts == 1) {
+			return "nearest neighbor";
+		} else if (this.starts <= 0) {
+			return "nearest neighbor × all";
+		} else {
+			return "nearest neighbor × "+ this.starts;
+		}
 	}
 }
@@ -2,6 +2,7 @@ package method.tsp;
 
 import java.util.List;
 import model.Node;
+import model.Tour;
 
 /**
  * 改善法を適用しないためのダミーのクラス
@@ -11,8 +12,14 @@ public class NoImprovement implements TspImprovement {
 	public boolean method(List<Node> route) {
 		return false;
 	}
-	public boolean method(int[] route, double[][] table) {
-		return false;
+	public double method(int[] route, DistanceTable table) {
+		return 0;
+	}
+	public double method(int[] route, DistanceTable table, CandidateList candidates) {
+		return 0;
+	}
+	public double method(Tour tour, DistanceTable table) {
+		return 0;
 	}
 
 	@Override
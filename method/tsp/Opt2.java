@@ -1,14 +1,45 @@
 package method.tsp;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import model.Node;
+import model.Tour;
 
 
 /**
  * 2-Optによる巡回セールスマン問題の改善法です。
+ * 並列に探索する場合は、巡回路を分割してForkJoinPoolで区間ごとに改善量が最大の交換を求め、
+ * 重ならない交換をまとめて適用します。
  * @author ma38su
  */
 public class Opt2 implements TspImprovement {
+
+	/**
+	 * 改善とみなす最小の変化量
+	 */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * 並列に最良改善の交換を探索する場合はtrue
+	 */
+	private final boolean isParallel;
+
+	/**
+	 * コンストラクタ
+	 * 最初に見つかった改善できる交換を適用します。
+	 */
+	public Opt2() {
+		this(false);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param isParallel 並列に最良改善の交換を探索する場合はtrue
+	 */
+	public Opt2(boolean isParallel) {
+		this.isParallel = isParallel;
+	}
+
 	public boolean method(List<Node> route) {
 		int length = route.size();
 		for (int i = 1; i < length - 1; i++) {
@@ -33,32 +64,313 @@ public class Opt2 implements TspImprovement {
 		return false;
 	}
 	
-	public boolean method(int[] route, double[][] table) {
+	public double method(int[] route, DistanceTable table) {
+		if (this.isParallel) {
+			return this.parallel(route, table, null);
+		}
+		if (table instanceof IntegerDistanceTable) {
+			return this.method(route, (IntegerDistanceTable) table);
+		}
 		int length = route.length;
 		for (int i = 1; i < length - 1; i++) {
 			int s1 = route[i - 1];
 			int t1 = route[i % length];
-			double d1 = table[s1][t1];
+			double d1 = table.get(s1, t1);
 			for (int j = i + 2; j <= length; j++) {
 				int s2 = route[j - 1];
 				int t2 = route[j % length];
-				double before = d1 + table[s2][t2];
-				double after = table[s1][s2] + table[t1][t2];
+				double before = d1 + table.get(s2, t2);
+				double after = table.get(s1, s2) + table.get(t1, t2);
 				if (before > after) {
 					for (int k = 0; k < (j - i) / 2; k++) {
 						int tmp = route[(k + i) % length];
 						route[(k + i) % length] = route[(j - k - 1) % length];
 						route[(j - k - 1) % length] = tmp;
 					}
-					return true;
+					return after - before;
 				}
 			}
 		}
-		return false;
+		return 0;
+	}
+
+	/**
+	 * 整数の距離テーブルを用いて巡回路を改善します。
+	 * 変化量を整数で比較するため、誤差によって改善しない交換を行うことはありません。
+	 * @param route 巡回路
+	 * @param table 整数の距離テーブル
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	private double method(int[] route, IntegerDistanceTable table) {
+		int length = route.length;
+		for (int i = 1; i < length - 1; i++) {
+			int s1 = route[i - 1];
+			int t1 = route[i % length];
+			int d1 = table.getInt(s1, t1);
+			for (int j = i + 2; j <= length; j++) {
+				int s2 = route[j - 1];
+				int t2 = route[j % length];
+				int gain = d1 + table.getInt(s2, t2) - table.getInt(s1, s2) - table.getInt(t1, t2);
+				if (gain > 0) {
+					for (int k = 0; k < (j - i) / 2; k++) {
+						int tmp = route[(k + i) % length];
+						route[(k + i) % length] = route[(j - k - 1) % length];
+						route[(j - k - 1) % length] = tmp;
+					}
+					return -gain;
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * 巡回路の2辺を交換して改善します。
+	 * 改善できる交換が見つかれば、1度だけ交換します。
+	 * 並列に探索する場合は、重ならない最良改善の交換をまとめて適用します。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(Tour tour, DistanceTable table) {
+		if (this.isParallel) {
+			return this.parallel(tour.toArray(), table, tour);
+		}
+		int length = tour.size();
+		int a = tour.get(0);
+		for (int i = 0; i < length; i++) {
+			int b = tour.next(a);
+			double d1 = table.get(a, b);
+			int c = tour.next(b);
+			for (int j = i + 2, end = i == 0 ? length - 1 : length; j < end; j++) {
+				int d = tour.next(c);
+				double gain = d1 + table.get(c, d) - table.get(a, c) - table.get(b, d);
+				if (gain > EPSILON) {
+					tour.reverse(b, c);
+					return -gain;
+				}
+				c = d;
+			}
+			a = b;
+		}
+		return 0;
+	}
+
+	/**
+	 * 候補近傍リストに含まれる辺を加える交換のみを評価し、局所最適解まで改善します。
+	 * 頂点aとその前後の頂点bの辺を、aと候補cの辺に置き換える交換を探索し、
+	 * d(a, b) > d(a, c)を満たさない候補は評価しません。
+	 * 探索する頂点はdon't look bitのキューで管理し、交換により端点が変わった頂点のみを再び探索します。
+	 * 区間の反転は、巡回路の短い側を反転します。
+	 * @param route 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(int[] route, DistanceTable table, CandidateList candidates) {
+		int length = route.length;
+		if (length < 4) {
+			return 0;
+		}
+		int[] position = new int[length];
+		for (int i = 0; i < length; i++) {
+			position[route[i]] = i;
+		}
+		// 探索する頂点のキュー、キューに含まれない頂点のdon't look bitが立っています。
+		int[] queue = new int[length];
+		boolean[] isQueued = new boolean[length];
+		for (int i = 0; i < length; i++) {
+			queue[i] = route[i];
+			isQueued[route[i]] = true;
+		}
+		int head = 0;
+		int size = length;
+		int[] neighbors = candidates.getNeighbors();
+		double delta = 0;
+		while (size > 0) {
+			int a = queue[head];
+			head = (head + 1) % length;
+			size--;
+			isQueued[a] = false;
+			int i = position[a];
+			int end = candidates.end(a);
+			boolean isMoved = false;
+			// 後続の頂点との辺を置き換える
+			int b = route[(i + 1) % length];
+			double d1 = table.get(a, b);
+			for (int l = candidates.begin(a); l < end; l++) {
+				int c = neighbors[l];
+				double g1 = d1 - table.get(a, c);
+				if (g1 <= EPSILON) {
+					break;
+				}
+				int pc = position[c];
+				int d = route[(pc + 1) % length];
+				if (c == b || d == a) {
+					continue;
+				}
+				double gain = g1 + table.get(c, d) - table.get(b, d);
+				if (gain > EPSILON) {
+					// (a, b), (c, d)を(a, c), (b, d)に置き換えます。
+					Opt2.reverse(route, position, (i + 1) % length, pc);
+					delta -= gain;
+					isMoved = true;
+					b = d;
+					break;
+				}
+			}
+			if (!isMoved) {
+				// 先行する頂点との辺を置き換える
+				b = route[(i + length - 1) % length];
+				d1 = table.get(a, b);
+				for (int l = candidates.begin(a); l < end; l++) {
+					int c = neighbors[l];
+					double g1 = d1 - table.get(a, c);
+					if (g1 <= EPSILON) {
+						break;
+					}
+					int pc = position[c];
+					int d = route[(pc + length - 1) % length];
+					if (c == b || d == a) {
+						continue;
+					}
+					double gain = g1 + table.get(c, d) - table.get(b, d);
+					if (gain > EPSILON) {
+						// (b, a), (d, c)を(d, b), (c, a)に置き換えます。
+						Opt2.reverse(route, position, pc, (i + length - 1) % length);
+						delta -= gain;
+						isMoved = true;
+						b = d;
+						break;
+					}
+				}
+			}
+			if (isMoved) {
+				// 端点の変わった頂点のdon't look bitを外します。
+				int p = position[a];
+				int q = position[b];
+				size = TspBase.enqueue(queue, isQueued, head, size, a);
+				size = TspBase.enqueue(queue, isQueued, head, size, route[(p + 1) % length]);
+				size = TspBase.enqueue(queue, isQueued, head, size, route[(p + length - 1) % length]);
+				size = TspBase.enqueue(queue, isQueued, head, size, b);
+				size = TspBase.enqueue(queue, isQueued, head, size, route[(q + 1) % length]);
+				size = TspBase.enqueue(queue, isQueued, head, size, route[(q + length - 1) % length]);
+			}
+		}
+		return delta;
+	}
+
+	/**
+	 * 巡回路の位置sから位置tまでの区間を反転します。
+	 * 区間の外側を反転しても同じ巡回路になるため、短い側を反転します。
+	 * @param route 巡回路
+	 * @param position 頂点の巡回路における位置
+	 * @param s 反転する区間の最初の位置
+	 * @param t 反転する区間の最後の位置
+	 */
+	static void reverse(int[] route, int[] position, int s, int t) {
+		int length = route.length;
+		int inner = (t - s + length) % length + 1;
+		if (inner * 2 > length) {
+			int tmp = (t + 1) % length;
+			t = (s + length - 1) % length;
+			s = tmp;
+			inner = length - inner;
+		}
+		for (int k = inner / 2; k > 0; k--) {
+			int u = route[s];
+			int v = route[t];
+			route[s] = v;
+			position[v] = s;
+			route[t] = u;
+			position[u] = t;
+			s = (s + 1) % length;
+			t = (t + length - 1) % length;
+		}
+	}
+
+	/**
+	 * 巡回路を分割して並列に区間ごとの最良改善の交換を求め、重ならない交換をまとめて適用します。
+	 * @param route 巡回路、tourを指定した場合はtourの訪問順
+	 * @param table 距離テーブル
+	 * @param tour 交換を適用する巡回路、nullであればrouteに適用します
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	private double parallel(int[] route, DistanceTable table, Tour tour) {
+		int length = route.length;
+		if (length < 4) {
+			return 0;
+		}
+		List<ParallelSearch.Move> moves = ForkJoinPool.commonPool().invoke(new Search(route, table, 1, length - 1, ParallelSearch.getThreshold(length)));
+		double delta = 0;
+		for (ParallelSearch.Move move : ParallelSearch.select(moves)) {
+			if (tour == null) {
+				for (int s = move.i, t = move.j - 1; s < t; s++, t--) {
+					int tmp = route[s];
+					route[s] = route[t];
+					route[t] = tmp;
+				}
+			} else {
+				TspBase.exchange(tour, route[move.i - 1], route[move.i], route[move.j - 1], route[move.j % length]);
+			}
+			delta -= move.gain;
+		}
+		return delta;
+	}
+
+	/**
+	 * 最初に取り除く辺の位置の区間で、最良改善の2-Optの交換を求めるタスク
+	 */
+	static class Search extends ParallelSearch {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] route;
+		private final DistanceTable table;
+
+		Search(int[] route, DistanceTable table, int lo, int hi, int threshold) {
+			super(lo, hi, threshold);
+			this.route = route;
+			this.table = table;
+		}
+
+		@Override
+		ParallelSearch create(int lo, int hi) {
+			return new Search(this.route, this.table, lo, hi, this.threshold);
+		}
+
+		@Override
+		Move search() {
+			int[] route = this.route;
+			DistanceTable table = this.table;
+			int length = route.length;
+			double max = EPSILON;
+			int bestI = -1;
+			int bestJ = -1;
+			for (int i = this.lo; i < this.hi; i++) {
+				int s1 = route[i - 1];
+				int t1 = route[i];
+				double d1 = table.get(s1, t1);
+				for (int j = i + 2, end = i == 1 ? length - 1 : length; j <= end; j++) {
+					int s2 = route[j - 1];
+					int t2 = route[j % length];
+					double gain = d1 + table.get(s2, t2) - table.get(s1, s2) - table.get(t1, t2);
+					if (gain > max) {
+						max = gain;
+						bestI = i;
+						bestJ = j;
+					}
+				}
+			}
+			return bestI < 0 ? null : new Move(max, bestI, bestJ);
+		}
 	}
 
 	@Override
 	public String toString() {
+		if (this.isParallel) {
+			return "2-Opt - parallel";
+		}
 		return "2-Opt";
 	}
 }
@@ -1,14 +1,45 @@
 package method.tsp;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import model.Node;
+import model.Tour;
 
 
 /**
  * 3-Optによる巡回セールスマン問題の改善法です。
+ * 並列に探索する場合は、巡回路を分割してForkJoinPoolで区間ごとに改善量が最大の交換を求め、
+ * 重ならない交換をまとめて適用します。
  * @author ma38su
  */
 public class Opt3 implements TspImprovement {
+
+	/**
+	 * 改善とみなす最小の変化量
+	 */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * 並列に最良改善の交換を探索する場合はtrue
+	 */
+	private final boolean isParallel;
+
+	/**
+	 * コンストラクタ
+	 * 最初に見つかった改善できる交換を適用します。
+	 */
+	public Opt3() {
+		this(false);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param isParallel 並列に最良改善の交換を探索する場合はtrue
+	 */
+	public Opt3(boolean isParallel) {
+		this.isParallel = isParallel;
+	}
+
 	public boolean method(List<Node> route) {
 		int length = route.size();
 		for (int i = 1; i < length - 1; i++) {
@@ -58,53 +89,225 @@ public class Opt3 implements TspImprovement {
 		return false;
 	}
 
-	public boolean method(int[] route, double[][] table) {
+	public double method(int[] route, DistanceTable table) {
+		if (this.isParallel) {
+			return this.parallel(route, table, null);
+		}
 		int length = route.length;
 		for (int i = 1; i < length - 1; i++) {
 			int s1 = route[i - 1];
 			int t1 = route[i];
-			double d1 = table[s1][t1];
+			double d1 = table.get(s1, t1);
 			for (int j = i + 1; j < length; j++) {
 				int s2 = route[j - 1];
 				int t2 = route[j];
-				double d2 = table[s2][t2];
+				double d2 = table.get(s2, t2);
 				for (int k = j + 1; k <= length; k++) {
 					if ((k + 2) % length == j || (j + 2) % length == i || i + 2 == k) {
 						continue;
 					}
 					int s3 = route[k - 1];
 					int t3 = route[k % length];
-					double before = d1 + d2 + table[s3][t3];
-					double after = table[s1][t2] + table[s3][t1] + table[s2][t3];
+					double before = d1 + d2 + table.get(s3, t3);
+					double after = table.get(s1, t2) + table.get(s3, t1) + table.get(s2, t3);
 					if (before > after) {
 						// リストの回転を行います。
 						this.reverse(route, i, j - 1);
 						this.reverse(route, j, k - 1);
 						this.reverse(route, i, k - 1);
-						return true;
+						return after - before;
 					}
-					after = table[s1][t2] + table[s3][s2] + table[t1][t3];
+					after = table.get(s1, t2) + table.get(s3, s2) + table.get(t1, t3);
 					if (before > after) {
 						this.reverse(route, j, k - 1);
 						this.reverse(route, i, k - 1);
-						return true;
+						return after - before;
 					}
-					after = table[s1][s3] + table[t2][t1] + table[s2][t3];
+					after = table.get(s1, s3) + table.get(t2, t1) + table.get(s2, t3);
 					if (before > after) {
 						this.reverse(route, i, j - 1);
 						this.reverse(route, i, k - 1);
-						return true;
+						return after - before;
 					}
-					after = table[s1][s2] + table[t1][s3] + table[t2][t3];
+					after = table.get(s1, s2) + table.get(t1, s3) + table.get(t2, t3);
 					if (before > after) {
 						this.reverse(route, i, j - 1);
 						this.reverse(route, j, k - 1);
-						return true;
+						return after - before;
 					}
 				}
 			}
 		}
-		return false;
+		return 0;
+	}
+
+	/**
+	 * 巡回路の3辺を交換して改善します。
+	 * 巡回路をs1 [t1..s2] [t2..s3] t3と表すと、2つの区間の順序と向きを入れ替える4通りの交換を評価し、
+	 * 改善できる交換が見つかれば、2-Optの交換の組み合わせで1度だけ交換します。
+	 * 並列に探索する場合は、重ならない最良改善の交換をまとめて適用します。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(Tour tour, DistanceTable table) {
+		if (this.isParallel) {
+			return this.parallel(tour.toArray(), table, tour);
+		}
+		int length = tour.size();
+		int s1 = tour.get(0);
+		for (int i = 0; i < length; i++) {
+			int t1 = tour.next(s1);
+			double d1 = table.get(s1, t1);
+			int s2 = t1;
+			for (int j = i + 1; j < length; j++) {
+				int t2 = tour.next(s2);
+				double d2 = d1 + table.get(s2, t2);
+				int s3 = t2;
+				for (int k = j + 1, end = i == 0 ? length - 1 : length; k < end; k++) {
+					int t3 = tour.next(s3);
+					double before = d2 + table.get(s3, t3);
+					for (int type = 0; type < 4; type++) {
+						double gain = before - Opt3.added(table, type, s1, t1, s2, t2, s3, t3);
+						if (gain > EPSILON) {
+							Opt3.exchange(tour, type, s1, t1, s2, t2, s3, t3);
+							return -gain;
+						}
+					}
+					s3 = t3;
+				}
+				s2 = t2;
+			}
+			s1 = t1;
+		}
+		return 0;
+	}
+
+	/**
+	 * 候補近傍リストに含まれる辺を加える交換のみを評価します。
+	 * 頂点s1から候補への辺を最初に加え、その部分利得が正の場合に限り、
+	 * 2本目の辺も候補近傍リストから選びます。O(n k^2)で実行します。
+	 * @param route 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(int[] route, DistanceTable table, CandidateList candidates) {
+		int length = route.length;
+		if (length < 6) {
+			return this.method(route, table);
+		}
+		int[] position = new int[length];
+		for (int i = 0; i < length; i++) {
+			position[route[i]] = i;
+		}
+		int[] neighbors = candidates.getNeighbors();
+		for (int i = 0; i < length; i++) {
+			int s1 = route[(i + length - 1) % length];
+			int t1 = route[i];
+			double d1 = table.get(s1, t1);
+			for (int l1 = candidates.begin(s1), end1 = candidates.end(s1); l1 < end1; l1++) {
+				int x = neighbors[l1];
+				double g1 = d1 - table.get(s1, x);
+				if (g1 <= EPSILON) {
+					break;
+				}
+				// 頂点s1からの相対位置
+				int rx = (position[x] - i + length) % length;
+
+				// xがt2の場合（s1-t2を加える）
+				int j = rx;
+				if (j >= 1 && j <= length - 2) {
+					int s2 = route[(i + j - 1) % length];
+					int t2 = x;
+					double g2 = g1 + table.get(s2, t2);
+					for (int l2 = candidates.begin(s2), end2 = candidates.end(s2); l2 < end2; l2++) {
+						int y = neighbors[l2];
+						double g = g2 - table.get(s2, y);
+						if (g <= EPSILON) {
+							break;
+						}
+						int ry = (position[y] - i + length) % length;
+						// yがt3の場合（s2-t3を加える）
+						int k = ry;
+						if (k > j && k <= length - 1) {
+							int s3 = route[(i + k - 1) % length];
+							int t3 = y;
+							double gain = g + table.get(s3, t3) - table.get(s3, t1);
+							if (gain > EPSILON) {
+								this.reverse(route, i, i + j - 1);
+								this.reverse(route, i + j, i + k - 1);
+								this.reverse(route, i, i + k - 1);
+								return -gain;
+							}
+						}
+						// yがs3の場合（s2-s3を加える）
+						k = ry + 1;
+						if (k > j && k <= length - 1) {
+							int s3 = y;
+							int t3 = route[(i + k) % length];
+							double gain = g + table.get(s3, t3) - table.get(t1, t3);
+							if (gain > EPSILON) {
+								this.reverse(route, i + j, i + k - 1);
+								this.reverse(route, i, i + k - 1);
+								return -gain;
+							}
+						}
+					}
+				}
+
+				// xがs3の場合（s1-s3を加える）
+				int k = rx + 1;
+				if (k >= 2 && k <= length - 1) {
+					int s3 = x;
+					int t3 = route[(i + k) % length];
+					double g2 = g1 + table.get(s3, t3);
+					for (int l2 = candidates.begin(t1), end2 = candidates.end(t1); l2 < end2; l2++) {
+						int t2 = neighbors[l2];
+						double g = g2 - table.get(t1, t2);
+						if (g <= EPSILON) {
+							break;
+						}
+						j = (position[t2] - i + length) % length;
+						if (j >= 1 && j < k) {
+							int s2 = route[(i + j - 1) % length];
+							double gain = g + table.get(s2, t2) - table.get(s2, t3);
+							if (gain > EPSILON) {
+								this.reverse(route, i, i + j - 1);
+								this.reverse(route, i, i + k - 1);
+								return -gain;
+							}
+						}
+					}
+				}
+
+				// xがs2の場合（s1-s2を加える）
+				j = rx + 1;
+				if (j >= 2 && j <= length - 2) {
+					int s2 = x;
+					int t2 = route[(i + j) % length];
+					double g2 = g1 + table.get(s2, t2);
+					for (int l2 = candidates.begin(t1), end2 = candidates.end(t1); l2 < end2; l2++) {
+						int s3 = neighbors[l2];
+						double g = g2 - table.get(t1, s3);
+						if (g <= EPSILON) {
+							break;
+						}
+						k = (position[s3] - i + length) % length + 1;
+						if (k > j && k <= length - 1) {
+							int t3 = route[(i + k) % length];
+							double gain = g + table.get(s3, t3) - table.get(t2, t3);
+							if (gain > EPSILON) {
+								this.reverse(route, i, i + j - 1);
+								this.reverse(route, i + j, i + k - 1);
+								return -gain;
+							}
+						}
+					}
+				}
+			}
+		}
+		return 0;
 	}
 
 	/**
@@ -137,8 +340,174 @@ public class Opt3 implements TspImprovement {
 		}
 	}
 	
+	/**
+	 * 3辺を交換したときに加える辺の長さの和を返します。
+	 * @param table 距離テーブル
+	 * @param type 交換の種類
+	 * @param s1 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @param t1 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @param s2 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @param t2 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @param s3 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @param t3 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @return 加える辺の長さの和
+	 */
+	static double added(DistanceTable table, int type, int s1, int t1, int s2, int t2, int s3, int t3) {
+		switch (type) {
+		case 0:
+			// s1 [t2..s3] [t1..s2] t3
+			return table.get(s1, t2) + table.get(s3, t1) + table.get(s2, t3);
+		case 1:
+			// s1 [t2..s3] [s2..t1] t3
+			return table.get(s1, t2) + table.get(s3, s2) + table.get(t1, t3);
+		case 2:
+			// s1 [s3..t2] [t1..s2] t3
+			return table.get(s1, s3) + table.get(t2, t1) + table.get(s2, t3);
+		default:
+			// s1 [s2..t1] [s3..t2] t3
+			return table.get(s1, s2) + table.get(t1, s3) + table.get(t2, t3);
+		}
+	}
+
+	/**
+	 * 2-Optの交換の組み合わせで3辺を交換します。
+	 * @param tour 巡回路
+	 * @param type 交換の種類
+	 * @param s1 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @param t1 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @param s2 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @param t2 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @param s3 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 * @param t3 巡回路s1 [t1..s2] [t2..s3] t3の頂点
+	 */
+	static void exchange(Tour tour, int type, int s1, int t1, int s2, int t2, int s3, int t3) {
+		switch (type) {
+		case 0:
+			TspBase.exchange(tour, s1, t1, s2, t2);
+			TspBase.exchange(tour, t1, t2, s3, t3);
+			TspBase.exchange(tour, s1, s2, t2, t3);
+			break;
+		case 1:
+			TspBase.exchange(tour, s2, t2, s3, t3);
+			TspBase.exchange(tour, s1, t1, t2, t3);
+			break;
+		case 2:
+			TspBase.exchange(tour, s1, t1, s2, t2);
+			TspBase.exchange(tour, s1, s2, s3, t3);
+			break;
+		default:
+			TspBase.exchange(tour, s1, t1, s2, t2);
+			TspBase.exchange(tour, t1, t2, s3, t3);
+			break;
+		}
+	}
+
+	/**
+	 * 巡回路を分割して並列に区間ごとの最良改善の交換を求め、重ならない交換をまとめて適用します。
+	 * @param route 巡回路、tourを指定した場合はtourの訪問順
+	 * @param table 距離テーブル
+	 * @param tour 交換を適用する巡回路、nullであればrouteに適用します
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	private double parallel(int[] route, DistanceTable table, Tour tour) {
+		int length = route.length;
+		if (length < 6) {
+			return 0;
+		}
+		List<ParallelSearch.Move> moves = ForkJoinPool.commonPool().invoke(new Search(route, table, 1, length - 1, ParallelSearch.getThreshold(length)));
+		double delta = 0;
+		for (ParallelSearch.Move move : ParallelSearch.select(moves)) {
+			int i = move.i;
+			int j = move.j;
+			int k = move.k;
+			if (tour == null) {
+				// 区間[i, j - 1]と[j, k - 1]の順序と向きを入れ替えます。
+				switch (move.type) {
+				case 0:
+					this.reverse(route, i, j - 1);
+					this.reverse(route, j, k - 1);
+					this.reverse(route, i, k - 1);
+					break;
+				case 1:
+					this.reverse(route, j, k - 1);
+					this.reverse(route, i, k - 1);
+					break;
+				case 2:
+					this.reverse(route, i, j - 1);
+					this.reverse(route, i, k - 1);
+					break;
+				default:
+					this.reverse(route, i, j - 1);
+					this.reverse(route, j, k - 1);
+					break;
+				}
+			} else {
+				Opt3.exchange(tour, move.type, route[i - 1], route[i], route[j - 1], route[j], route[k - 1], route[k % length]);
+			}
+			delta -= move.gain;
+		}
+		return delta;
+	}
+
+	/**
+	 * 最初に取り除く辺の位置の区間で、最良改善の3-Optの交換を求めるタスク
+	 */
+	static class Search extends ParallelSearch {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] route;
+		private final DistanceTable table;
+
+		Search(int[] route, DistanceTable table, int lo, int hi, int threshold) {
+			super(lo, hi, threshold);
+			this.route = route;
+			this.table = table;
+		}
+
+		@Override
+		ParallelSearch create(int lo, int hi) {
+			return new Search(this.route, this.table, lo, hi, this.threshold);
+		}
+
+		@Override
+		Move search() {
+			int[] route = this.route;
+			DistanceTable table = this.table;
+			int length = route.length;
+			double max = EPSILON;
+			Move best = null;
+			for (int i = this.lo; i < this.hi; i++) {
+				int s1 = route[i - 1];
+				int t1 = route[i];
+				double d1 = table.get(s1, t1);
+				for (int j = i + 1; j < length; j++) {
+					int s2 = route[j - 1];
+					int t2 = route[j];
+					double d2 = d1 + table.get(s2, t2);
+					for (int k = j + 1, end = i == 1 ? length - 1 : length; k <= end; k++) {
+						int s3 = route[k - 1];
+						int t3 = route[k % length];
+						double before = d2 + table.get(s3, t3);
+						for (int type = 0; type < 4; type++) {
+							double gain = before - Opt3.added(table, type, s1, t1, s2, t2, s3, t3);
+							if (gain > max) {
+								max = gain;
+								best = new Move(gain, type, i, j, k);
+							}
+						}
+					}
+				}
+			}
+			return best;
+		}
+	}
+
 	@Override
 	public String toString() {
+		if (this.isParallel) {
+			return "3-Opt - parallel";
+		}
 		return "3-Opt";
 	}
 }
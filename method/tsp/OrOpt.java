@@ -2,6 +2,7 @@ package method.tsp;
 
 import java.util.List;
 import model.Node;
+import model.Tour;
 
 
 /**
@@ -10,7 +11,17 @@ import model.Node;
  * 枝を3本刈るため、3-Optと挙動は同じである。
  * @author ma38su
  */
-public class OrOpt implements TspImprovement {	
+public class OrOpt implements TspImprovement {
+
+	/**
+	 * 移動する部分路の最大の長さ
+	 */
+	private static final int MAX_SEGMENT = 3;
+
+	/**
+	 * 改善とみなす最小の変化量
+	 */
+	private static final double EPSILON = 1e-9;
 
 	public boolean method(List<Node> route) {
 		int length = route.size();
@@ -38,27 +49,14 @@ public class OrOpt implements TspImprovement {
 							this.reverse(route, i, k);
 							return true;
 						}
-						// TODO
-//						if (j + 1 != k) {
-//							after = s1.getDistance(s3) + t2.getDistance(t1) + s2.getDistance(t3);
-//							if (before > after) {
-//								List<Node> list = new ArrayList<Node>();
-//								for (int l = k; l >= j + 1; l--) {
-//									list.add(route.get(l % length));
-//								}
-////								for (int l = j + 1; l <= k ; l++) {
-////									list.add(route.get(k + j + 1 - l));
-////								}
-//								for (int l = i; l < j + 1; l++) {
-//									list.add(route.get(l % length));
-//								}
-//								for (int l = 0; i < list.size(); i++) {
-//									route.set((l + i) % length, list.get(l % length));
-//								}
-//								System.out.println("Or-Opt");
-//								return true;
-//							}
-//						}
+						if (j + 1 != k) {
+							after = s1.getDistance(s3) + t2.getDistance(t1) + s2.getDistance(t3);
+							if (before > after) {
+								this.reverse(route, i, j);
+								this.reverse(route, i, k);
+								return true;
+							}
+						}
 					}
 				}
 			}
@@ -86,8 +84,295 @@ public class OrOpt implements TspImprovement {
 		return "Or-Opt";
 	}
 
-	public boolean method(int[] route, double[][] table) {
-		// TODO 自動生成されたメソッド・スタブ
-		return false;
+	/**
+	 * 連続する3頂点までの部分路を他の位置に移動挿入して改善します。
+	 * 巡回路をs1 [t1..s2] [t2..s3] t3と表すと、部分路[t1..s2]を、向きを保つか反転してs3の後に移動するか、
+	 * 区間[t2..s3]を反転してその後に移動する交換を評価し、改善できる交換が見つかれば1度だけ交換します。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(Tour tour, DistanceTable table) {
+		int length = tour.size();
+		int s1 = tour.get(0);
+		for (int i = 0; i < length; i++) {
+			int t1 = tour.next(s1);
+			double d1 = table.get(s1, t1);
+			int s2 = t1;
+			for (int size = 1; size <= MAX_SEGMENT && size + 3 <= length; size++) {
+				int t2 = tour.next(s2);
+				double d2 = d1 + table.get(s2, t2);
+				int s3 = t2;
+				for (int k = size + 1; k < length - 1; k++) {
+					int t3 = tour.next(s3);
+					double before = d2 + table.get(s3, t3);
+					double gain = before - table.get(s1, t2) - table.get(s3, t1) - table.get(s2, t3);
+					if (gain > EPSILON) {
+						// s1 [t2..s3] [t1..s2] t3
+						TspBase.exchange(tour, s1, t1, s2, t2);
+						TspBase.exchange(tour, t1, t2, s3, t3);
+						TspBase.exchange(tour, s1, s2, t2, t3);
+						return -gain;
+					}
+					if (size > 1) {
+						gain = before - table.get(s1, t2) - table.get(s3, s2) - table.get(t1, t3);
+						if (gain > EPSILON) {
+							// s1 [t2..s3] [s2..t1] t3
+							TspBase.exchange(tour, s2, t2, s3, t3);
+							TspBase.exchange(tour, s1, t1, t2, t3);
+							return -gain;
+						}
+						gain = before - table.get(s1, s3) - table.get(t2, t1) - table.get(s2, t3);
+						if (s3 != t2 && gain > EPSILON) {
+							// s1 [s3..t2] [t1..s2] t3
+							TspBase.exchange(tour, s1, t1, s2, t2);
+							TspBase.exchange(tour, s1, s2, s3, t3);
+							return -gain;
+						}
+					}
+					s3 = t3;
+				}
+				s2 = t2;
+			}
+			s1 = t1;
+		}
+		return 0;
+	}
+
+	/**
+	 * 連続する1から3頂点の部分路を、向きを保つか反転して他の辺の間に移動挿入します。
+	 * 改善量はO(1)で評価し、部分路の移動は区間の反転で行うため、配列を確保しません。
+	 * @param route 巡回路
+	 * @param table 距離テーブル
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(int[] route, DistanceTable table) {
+		if (table instanceof IntegerDistanceTable) {
+			return this.method(route, (IntegerDistanceTable) table);
+		}
+		int length = route.length;
+		for (int i = 0; i < length; i++) {
+			for (int size = 1; size <= MAX_SEGMENT && size + 3 <= length; size++) {
+				int p = route[(i + length - 1) % length];
+				int f = route[i];
+				int l = route[(i + size - 1) % length];
+				int nx = route[(i + size) % length];
+				double removal = table.get(p, f) + table.get(l, nx) - table.get(p, nx);
+				if (removal <= EPSILON) {
+					continue;
+				}
+				// 部分路の後続の頂点から、部分路の先行する頂点の前の頂点までの辺(c, e)の間に挿入します。
+				for (int gap = 1; gap < length - size; gap++) {
+					int c = route[(i + size + gap - 1) % length];
+					int e = route[(i + size + gap) % length];
+					double edge = table.get(c, e);
+					double gain = removal + edge - table.get(c, f) - table.get(l, e);
+					if (gain > EPSILON) {
+						OrOpt.move(route, null, i, size, gap, false);
+						return -gain;
+					}
+					gain = removal + edge - table.get(c, l) - table.get(f, e);
+					if (size > 1 && gain > EPSILON) {
+						OrOpt.move(route, null, i, size, gap, true);
+						return -gain;
+					}
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * 整数の距離テーブルを用いて巡回路を改善します。
+	 * 改善量を整数で比較するため、誤差によって改善しない移動を行うことはありません。
+	 * @param route 巡回路
+	 * @param table 整数の距離テーブル
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	private double method(int[] route, IntegerDistanceTable table) {
+		int length = route.length;
+		for (int i = 0; i < length; i++) {
+			for (int size = 1; size <= MAX_SEGMENT && size + 3 <= length; size++) {
+				int p = route[(i + length - 1) % length];
+				int f = route[i];
+				int l = route[(i + size - 1) % length];
+				int nx = route[(i + size) % length];
+				int removal = table.getInt(p, f) + table.getInt(l, nx) - table.getInt(p, nx);
+				if (removal <= 0) {
+					continue;
+				}
+				for (int gap = 1; gap < length - size; gap++) {
+					int c = route[(i + size + gap - 1) % length];
+					int e = route[(i + size + gap) % length];
+					int edge = table.getInt(c, e);
+					int gain = removal + edge - table.getInt(c, f) - table.getInt(l, e);
+					if (gain > 0) {
+						OrOpt.move(route, null, i, size, gap, false);
+						return -gain;
+					}
+					gain = removal + edge - table.getInt(c, l) - table.getInt(f, e);
+					if (size > 1 && gain > 0) {
+						OrOpt.move(route, null, i, size, gap, true);
+						return -gain;
+					}
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * 候補近傍リストに含まれる辺を加える移動挿入のみを評価し、局所最適解まで改善します。
+	 * 部分路の端点fまたはlと、その候補cを隣接させる挿入位置を探索し、
+	 * 部分路を取り除く改善量がd(f, c)またはd(l, c)を超えない候補は評価しません。
+	 * 探索する頂点はdon't look bitのキューで管理し、移動により隣接する頂点が変わった頂点のみを再び探索します。
+	 * 位置配列とキューのほかに配列を確保しません。
+	 * @param route 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(int[] route, DistanceTable table, CandidateList candidates) {
+		int length = route.length;
+		if (length < 5) {
+			return 0;
+		}
+		int[] position = new int[length];
+		for (int i = 0; i < length; i++) {
+			position[route[i]] = i;
+		}
+		// 探索する頂点のキュー、キューに含まれない頂点のdon't look bitが立っています。
+		int[] queue = new int[length];
+		boolean[] isQueued = new boolean[length];
+		for (int i = 0; i < length; i++) {
+			queue[i] = route[i];
+			isQueued[route[i]] = true;
+		}
+		int head = 0;
+		int count = length;
+		int[] neighbors = candidates.getNeighbors();
+		double delta = 0;
+		while (count > 0) {
+			int a = queue[head];
+			head = (head + 1) % length;
+			count--;
+			isQueued[a] = false;
+			// 頂点aから始まる部分路と、頂点aで終わる部分路を調べます。
+			search: for (int size = 1; size <= MAX_SEGMENT && size + 3 <= length; size++) {
+				for (int side = 0; side < (size == 1 ? 1 : 2); side++) {
+					int i = side == 0 ? position[a] : (position[a] - size + 1 + length) % length;
+					int p = route[(i + length - 1) % length];
+					int f = route[i];
+					int l = route[(i + size - 1) % length];
+					int nx = route[(i + size) % length];
+					double removal = table.get(p, f) + table.get(l, nx) - table.get(p, nx);
+					if (removal <= EPSILON) {
+						continue;
+					}
+					for (int end = 0; end < (size == 1 ? 1 : 2); end++) {
+						// 部分路の端点xに候補cを隣接させ、もう一方の端点yを挿入する辺のもう一方の端点に隣接させます。
+						int x = end == 0 ? f : l;
+						int y = end == 0 ? l : f;
+						for (int k = candidates.begin(x), last = candidates.end(x); k < last; k++) {
+							int c = neighbors[k];
+							double g1 = removal - table.get(x, c);
+							if (g1 <= EPSILON) {
+								break;
+							}
+							int gap = (position[c] - position[l] + length) % length;
+							if (gap == 0 || gap > length - size) {
+								// 候補が部分路に含まれる
+								continue;
+							}
+							// cの後続の頂点との間に挿入します（c, x, ..., y, e）。
+							if (c != p) {
+								int e = route[(position[c] + 1) % length];
+								double gain = g1 + table.get(c, e) - table.get(y, e);
+								if (gain > EPSILON) {
+									OrOpt.move(route, position, i, size, gap, end == 1);
+									count = TspBase.enqueue(queue, isQueued, head, count, p);
+									count = TspBase.enqueue(queue, isQueued, head, count, nx);
+									count = TspBase.enqueue(queue, isQueued, head, count, f);
+									count = TspBase.enqueue(queue, isQueued, head, count, l);
+									count = TspBase.enqueue(queue, isQueued, head, count, c);
+									count = TspBase.enqueue(queue, isQueued, head, count, e);
+									delta -= gain;
+									break search;
+								}
+							}
+							// cの先行する頂点との間に挿入します（e, y, ..., x, c）。
+							if (c != nx) {
+								int e = route[(position[c] + length - 1) % length];
+								double gain = g1 + table.get(e, c) - table.get(e, y);
+								if (gain > EPSILON) {
+									OrOpt.move(route, position, i, size, gap - 1, end == 0);
+									count = TspBase.enqueue(queue, isQueued, head, count, p);
+									count = TspBase.enqueue(queue, isQueued, head, count, nx);
+									count = TspBase.enqueue(queue, isQueued, head, count, f);
+									count = TspBase.enqueue(queue, isQueued, head, count, l);
+									count = TspBase.enqueue(queue, isQueued, head, count, c);
+									count = TspBase.enqueue(queue, isQueued, head, count, e);
+									delta -= gain;
+									break search;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		return delta;
+	}
+	/**
+	 * 位置iから始まる長さsizeの部分路を、その後のgap個の頂点の後に移動します。
+	 * 部分路の後の区間と前の区間のうち、短い側を移動させます。
+	 * @param route 巡回路
+	 * @param position 頂点の巡回路における位置、更新しない場合はnull
+	 * @param i 部分路の最初の位置
+	 * @param size 部分路の長さ
+	 * @param gap 部分路を移動する先までの頂点の数
+	 * @param isReversed 部分路を反転して挿入する場合はtrue
+	 */
+	static void move(int[] route, int[] position, int i, int size, int gap, boolean isReversed) {
+		int length = route.length;
+		int before = length - size - gap;
+		if (gap <= before) {
+			// 部分路と後の区間を入れ替えます。
+			if (!isReversed) {
+				OrOpt.reverse(route, position, i, size);
+			}
+			OrOpt.reverse(route, position, i + size, gap);
+			OrOpt.reverse(route, position, i, size + gap);
+		} else {
+			// 前の区間と部分路を入れ替えます。
+			int start = i - before + length;
+			OrOpt.reverse(route, position, start, before);
+			if (!isReversed) {
+				OrOpt.reverse(route, position, i, size);
+			}
+			OrOpt.reverse(route, position, start, before + size);
+		}
+	}
+
+	/**
+	 * 位置sから始まるcount個の要素を逆順に並べ替えます。
+	 * @param route 巡回路
+	 * @param position 頂点の巡回路における位置、更新しない場合はnull
+	 * @param s 並べ替える要素の最初の位置
+	 * @param count 並べ替える要素の数
+	 */
+	static void reverse(int[] route, int[] position, int s, int count) {
+		int length = route.length;
+		int t = s + count - 1;
+		for (; s < t; s++, t--) {
+			int u = route[s % length];
+			int v = route[t % length];
+			route[s % length] = v;
+			route[t % length] = u;
+			if (position != null) {
+				position[v] = s % length;
+				position[u] = t % length;
+			}
+		}
 	}
 }
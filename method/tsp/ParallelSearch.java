@@ -0,0 +1,179 @@
+package method.tsp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * 2-Optと3-Optの最良改善の交換を並列に探索するタスクです。
+ * 最初に取り除く辺の位置の区間[lo, hi)を分割してForkJoinPoolで探索し、区間ごとに改善量が最大の交換を求めます。
+ * 求めた交換のうち、取り除く辺の範囲が重ならない交換は互いに影響しないため、まとめて適用できます。
+ * @author ma38su
+ */
+abstract class ParallelSearch extends RecursiveTask<List<ParallelSearch.Move>> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * ワーカーあたりの区間の数
+	 */
+	private static final int CHUNKS = 8;
+
+	/**
+	 * 探索する位置の最小値
+	 */
+	final int lo;
+
+	/**
+	 * 探索する位置の最大値 + 1
+	 */
+	final int hi;
+
+	/**
+	 * これ以下の大きさの区間は分割しません。
+	 */
+	final int threshold;
+
+	/**
+	 * コンストラクタ
+	 * @param lo 探索する位置の最小値
+	 * @param hi 探索する位置の最大値 + 1
+	 * @param threshold これ以下の大きさの区間は分割しません
+	 */
+	ParallelSearch(int lo, int hi, int threshold) {
+		this.lo = lo;
+		this.hi = hi;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * 区間をワーカーあたりCHUNKS個に分割する大きさを返します。
+	 * @param size 探索する区間の大きさ
+	 * @return 分割しない区間の大きさ
+	 */
+	static int getThreshold(int size) {
+		return Math.max(1, size / (CHUNKS * ForkJoinPool.getCommonPoolParallelism()));
+	}
+
+	/**
+	 * 区間[lo, hi)を探索するタスクを作成します。
+	 * @param lo 探索する位置の最小値
+	 * @param hi 探索する位置の最大値 + 1
+	 * @return タスク
+	 */
+	abstract ParallelSearch create(int lo, int hi);
+
+	/**
+	 * 区間[lo, hi)で改善量が最大の交換を求めます。
+	 * @return 改善量が最大の交換、改善できなければnull
+	 */
+	abstract Move search();
+
+	@Override
+	protected List<Move> compute() {
+		if (this.hi - this.lo > this.threshold) {
+			int mid = (this.lo + this.hi) >>> 1;
+			ParallelSearch left = this.create(this.lo, mid);
+			ParallelSearch right = this.create(mid, this.hi);
+			left.fork();
+			List<Move> moves = right.compute();
+			moves.addAll(left.join());
+			return moves;
+		}
+		List<Move> moves = new ArrayList<Move>(1);
+		Move move = this.search();
+		if (move != null) {
+			moves.add(move);
+		}
+		return moves;
+	}
+
+	/**
+	 * 改善量の大きい順に、取り除く辺の範囲が重ならない交換を選びます。
+	 * @param moves 区間ごとに求めた交換
+	 * @return 同時に適用できる交換
+	 */
+	static List<Move> select(List<Move> moves) {
+		Collections.sort(moves, new Comparator<Move>() {
+			public int compare(Move m1, Move m2) {
+				return Double.compare(m2.gain, m1.gain);
+			}
+		});
+		List<Move> selected = new ArrayList<Move>(moves.size());
+		for (Move move : moves) {
+			boolean isOverlapped = false;
+			for (Move other : selected) {
+				if (move.first <= other.last && other.first <= move.last) {
+					isOverlapped = true;
+					break;
+				}
+			}
+			if (!isOverlapped) {
+				selected.add(move);
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * 交換
+	 * 巡回路の位置i - 1とi、j - 1とj、k - 1とkの頂点の辺を取り除きます。
+	 */
+	static class Move {
+		/**
+		 * 改善量
+		 */
+		final double gain;
+
+		/**
+		 * 交換の種類
+		 */
+		final int type;
+
+		final int i;
+		final int j;
+		final int k;
+
+		/**
+		 * 取り除く最初の辺の位置、位置eの辺は位置eとe + 1の頂点を結びます。
+		 */
+		final int first;
+
+		/**
+		 * 取り除く最後の辺の位置
+		 */
+		final int last;
+
+		/**
+		 * 2辺を取り除く交換
+		 * @param gain 改善量
+		 * @param i 取り除く1つ目の辺の後の位置
+		 * @param j 取り除く2つ目の辺の後の位置
+		 */
+		Move(double gain, int i, int j) {
+			this(gain, 0, i, j, j);
+		}
+
+		/**
+		 * 3辺を取り除く交換
+		 * @param gain 改善量
+		 * @param type 交換の種類
+		 * @param i 取り除く1つ目の辺の後の位置
+		 * @param j 取り除く2つ目の辺の後の位置
+		 * @param k 取り除く3つ目の辺の後の位置
+		 */
+		Move(double gain, int type, int i, int j, int k) {
+			this.gain = gain;
+			this.type = type;
+			this.i = i;
+			this.j = j;
+			this.k = k;
+			this.first = i - 1;
+			this.last = k - 1;
+		}
+	}
+}
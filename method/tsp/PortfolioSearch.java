@@ -0,0 +1,328 @@
+package method.tsp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import model.Node;
+import model.Tour;
+import model.TourFactory;
+
+
+/**
+ * 複数のスレッドで反復局所探索法を並列に実行する巡回セールスマン問題の改善法です。
+ * ワーカーごとに局所探索の近傍、乱数のシード、摂動で入れ替える区間の長さを変えて、異なる探索の軌跡をたどります。
+ * 局所探索はLin-Kernighanの手法の交換の深さで近傍を切り替え、深さ1では候補近傍リストによる2-Opt、
+ * 深さ3ではOr-Optの移動を含む逐次的な3-Opt、それより深ければLin-Kernighanの手法の近傍を探索します。
+ * 各ワーカーは改善した巡回路をAtomicReferenceで共有する最良の巡回路にロックを用いずに公開し、
+ * 一定の間隔で共有する最良の巡回路が自身の巡回路より短ければ、その巡回路から探索を再開します。
+ * @author ma38su
+ */
+public class PortfolioSearch implements TspImprovement, TimeLimited {
+
+	/**
+	 * 改善とみなす最小の変化量
+	 */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * 候補近傍リストの頂点あたりの候補の数
+	 */
+	private static final int CANDIDATES = 8;
+
+	/**
+	 * 最良の巡回路を公開し、再開するか確認する間隔（ms）
+	 */
+	private static final long PERIOD = 1000;
+
+	/**
+	 * ワーカーごとに順に割り当てる、局所探索の交換の最大の深さ
+	 * 順にLin-Kernighanの手法、2-Opt、3-Optの近傍を探索します。
+	 */
+	private static final int[] DEPTHS = {50, 1, 3};
+
+	/**
+	 * 局所探索の近傍が同じワーカーに順に割り当てる、摂動で入れ替える区間の最大の長さ
+	 */
+	private static final int[] SEGMENTS = {50, 10, 200};
+
+	/**
+	 * 探索する時間（ms）
+	 */
+	private final long time;
+
+	/**
+	 * ワーカーの数
+	 */
+	private final int workers;
+
+	/**
+	 * 乱数のシード、ワーカーごとに1ずつずらして用います。
+	 */
+	private final long seed;
+
+	/**
+	 * ワーカーを実行するスレッドプール、呼び出しごとに再利用します。
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * ワーカーの巡回路の表現を選ぶファクトリ
+	 */
+	private final TourFactory factory;
+
+	/**
+	 * 距離テーブルごとに作成した候補近傍リスト
+	 */
+	private final CandidateCache candidateCache = new CandidateCache(CANDIDATES);
+
+	/**
+	 * コンストラクタ
+	 * 利用できるプロセッサの数のワーカーで、10秒間探索します。
+	 */
+	public PortfolioSearch() {
+		this(10000, Runtime.getRuntime().availableProcessors(), 0);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param time 探索する時間（ms）
+	 * @param workers ワーカーの数
+	 * @param seed 乱数のシード
+	 */
+	public PortfolioSearch(long time, int workers, long seed) {
+		this(time, workers, seed, new TourFactory());
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param time 探索する時間（ms）
+	 * @param workers ワーカーの数
+	 * @param seed 乱数のシード
+	 * @param factory ワーカーの巡回路の表現を選ぶファクトリ
+	 */
+	public PortfolioSearch(long time, int workers, long seed, TourFactory factory) {
+		if (workers < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.time = time;
+		this.workers = workers;
+		this.seed = seed;
+		this.factory = factory;
+		this.pool = new ForkJoinPool(workers);
+	}
+
+	public boolean method(List<Node> route) {
+		Node[] nodes = route.toArray(new Node[]{});
+		int[] order = new int[nodes.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		DistanceTable table = new CoordinateDistanceTable(nodes);
+		if (this.method(order, table, this.candidateCache.get(table)) < 0) {
+			for (int i = 0; i < nodes.length; i++) {
+				route.set(i, nodes[order[i]]);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	public double method(int[] route, DistanceTable table) {
+		return this.method(route, table, this.candidateCache.get(table));
+	}
+
+	public double method(Tour tour, DistanceTable table) {
+		int[] route = tour.toArray();
+		double delta = this.method(route, table, this.candidateCache.get(table));
+		if (delta < 0) {
+			TspBase.set(tour, route);
+		}
+		return delta;
+	}
+
+	/**
+	 * 指定した時間が経過するまでワーカーを並列に実行し、最良の巡回路に置き換えます。
+	 * @param route 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(int[] route, DistanceTable table, CandidateList candidates) {
+		if (route.length < 8) {
+			// 摂動を加えられない巡回路では、ワーカーが何もせずに探索する時間を使い切るため探索しません。
+			return 0;
+		}
+		long deadline = System.nanoTime() + this.time * 1000000L;
+		Snapshot initial = new Snapshot(new TourLength(route, table).get(), route.clone());
+		AtomicReference<Snapshot> best = new AtomicReference<Snapshot>(initial);
+		List<Worker> tasks = new ArrayList<Worker>(this.workers);
+		for (int i = 0; i < this.workers; i++) {
+			int depth = DEPTHS[i % DEPTHS.length];
+			int segment = SEGMENTS[i / DEPTHS.length % SEGMENTS.length];
+			IteratedLocalSearch search = new IteratedLocalSearch(this.time, this.seed + i, segment, depth, this.factory);
+			tasks.add(new Worker(search, this.factory, table, candidates, best, deadline));
+		}
+		try {
+			for (Future<Void> future : this.pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			// 中断された場合は、それまでに見つかった最良の巡回路を採用します。
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		Snapshot result = best.get();
+		if (result == initial) {
+			return 0;
+		}
+		System.arraycopy(result.route, 0, route, 0, route.length);
+		// 公開する巡回路の長さは求め直しているため、変化量に誤差を累積しません。
+		return result.length - initial.length;
+	}
+
+	@Override
+	public String toString() {
+		return "Iterated Local Search - portfolio";
+	}
+
+	/**
+	 * 共有する最良の巡回路です。
+	 * 公開した後は変更しないため、ロックを用いずに複数のワーカーから参照できます。
+	 */
+	private static class Snapshot {
+
+		/**
+		 * 巡回路の長さ
+		 */
+		final double length;
+
+		/**
+		 * 訪問順に並べた頂点
+		 */
+		final int[] route;
+
+		/**
+		 * コンストラクタ
+		 * @param length 巡回路の長さ
+		 * @param route 訪問順に並べた頂点
+		 */
+		Snapshot(double length, int[] route) {
+			this.length = length;
+			this.route = route;
+		}
+	}
+
+	/**
+	 * 反復局所探索法を実行するワーカーです。
+	 * PERIODごとに改善した巡回路を公開し、共有する最良の巡回路の方が短ければその巡回路から再開します。
+	 */
+	private static class Worker implements Callable<Void> {
+
+		/**
+		 * 反復局所探索法
+		 */
+		private final IteratedLocalSearch search;
+
+		/**
+		 * 巡回路の表現を選ぶファクトリ
+		 */
+		private final TourFactory factory;
+
+		/**
+		 * 距離テーブル
+		 */
+		private final DistanceTable table;
+
+		/**
+		 * 候補近傍リスト
+		 */
+		private final CandidateList candidates;
+
+		/**
+		 * 共有する最良の巡回路
+		 */
+		private final AtomicReference<Snapshot> best;
+
+		/**
+		 * 探索を終える時刻（System.nanoTime()の値）
+		 */
+		private final long deadline;
+
+		/**
+		 * コンストラクタ
+		 * @param search 反復局所探索法
+		 * @param factory 巡回路の表現を選ぶファクトリ
+		 * @param table 距離テーブル
+		 * @param candidates 候補近傍リスト
+		 * @param best 共有する最良の巡回路
+		 * @param deadline 探索を終える時刻（System.nanoTime()の値）
+		 */
+		Worker(IteratedLocalSearch search, TourFactory factory, DistanceTable table, CandidateList candidates, AtomicReference<Snapshot> best, long deadline) {
+			this.search = search;
+			this.factory = factory;
+			this.table = table;
+			this.candidates = candidates;
+			this.best = best;
+			this.deadline = deadline;
+		}
+
+		public Void call() {
+			if (System.nanoTime() - this.deadline >= 0) {
+				return null;
+			}
+			Snapshot snapshot = this.best.get();
+			Tour tour = this.factory.create(snapshot.route.clone());
+			TourLength length = new TourLength(tour, this.table);
+			// 最初の区間では局所最適解まで改善してから摂動を加えます。公開される巡回路は局所最適解です。
+			length.add(this.search.method(tour, this.table, this.candidates, this.next()));
+			while (System.nanoTime() - this.deadline < 0 && !Thread.currentThread().isInterrupted()) {
+				snapshot = this.publish(tour, length);
+				if (snapshot.length < length.get() - EPSILON) {
+					tour = this.factory.create(snapshot.route.clone());
+					length = new TourLength(tour, this.table);
+				}
+				length.add(this.search.perturb(tour, this.table, this.candidates, this.next()));
+			}
+			this.publish(tour, length);
+			return null;
+		}
+
+		/**
+		 * 次に最良の巡回路を公開する時刻を返します。
+		 * @return PERIOD後の時刻、探索を終える時刻を超えない
+		 */
+		private long next() {
+			long next = System.nanoTime() + PERIOD * 1000000L;
+			return next - this.deadline < 0 ? next : this.deadline;
+		}
+
+		/**
+		 * 巡回路が共有する最良の巡回路より短ければ、比較と交換で最良の巡回路として公開します。
+		 * 変化量の累積による誤差を持ち込まないように、巡回路の長さを求め直してから比較します。
+		 * @param tour 巡回路
+		 * @param tourLength 巡回路の長さ
+		 * @return 公開後の最良の巡回路
+		 */
+		private Snapshot publish(Tour tour, TourLength tourLength) {
+			tourLength.resum();
+			double length = tourLength.get();
+			Snapshot current = this.best.get();
+			if (current.length <= length + EPSILON) {
+				return current;
+			}
+			Snapshot snapshot = new Snapshot(length, tour.toArray());
+			while (!this.best.compareAndSet(current, snapshot)) {
+				current = this.best.get();
+				if (current.length <= length + EPSILON) {
+					return current;
+				}
+			}
+			return snapshot;
+		}
+	}
+}
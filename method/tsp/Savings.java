@@ -0,0 +1,121 @@
+package method.tsp;
+
+import gui.DemoPanel;
+import java.util.ArrayList;
+import java.util.List;
+import model.Node;
+import util.IndexedHeap;
+import util.KdTree;
+
+
+/**
+ * Clarke and Wrightのsavingsによる巡回セールスマン問題の構築法です。
+ * 重心に最も近い頂点をハブとし、候補近傍リストの頂点対(i, j)について
+ * 節約量s(i, j) = d(h, i) + d(h, j) - d(i, j)を求め、節約量の大きい順に部分路を連結します。
+ * 部分路の端点からもう一方の端点を配列で保持するため、連結はO(1)で行えます。
+ * @author ma38su
+ */
+public class Savings implements TspConstruction {
+
+	/**
+	 * 頂点あたりのk近傍の数
+	 */
+	private final int k;
+
+	/**
+	 * コンストラクタ
+	 */
+	public Savings() {
+		this(10);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param k 頂点あたりのk近傍の数
+	 */
+	public Savings(int k) {
+		this.k = k;
+	}
+
+	public List<Node> method(DemoPanel panel) {
+		Node[] nodes = panel.getNodes().toArray(new Node[]{});
+		List<Node> route = new ArrayList<Node>(nodes.length + 1);
+		int n = nodes.length;
+		if (n > 0) {
+			int[] xs = new int[n];
+			int[] ys = new int[n];
+			long sumX = 0;
+			long sumY = 0;
+			for (int i = 0; i < n; i++) {
+				xs[i] = nodes[i].getX();
+				ys[i] = nodes[i].getY();
+				sumX += xs[i];
+				sumY += ys[i];
+			}
+			int hub = new KdTree(xs, ys).nearest((int) (sumX / n), (int) (sumY / n));
+			CandidateList candidates = CandidateList.create(xs, ys, this.k, 0);
+
+			// 節約量が正の候補の頂点対を列挙します。
+			int[] neighbors = candidates.getNeighbors();
+			int[] pairS = new int[neighbors.length];
+			int[] pairT = new int[neighbors.length];
+			IndexedHeap heap = new IndexedHeap(neighbors.length);
+			int size = 0;
+			for (int i = 0; i < n; i++) {
+				if (i == hub) {
+					continue;
+				}
+				for (int l = candidates.begin(i); l < candidates.end(i); l++) {
+					int j = neighbors[l];
+					if (j == hub || (i > j && candidates.contains(j, i))) {
+						continue;
+					}
+					double saving = nodes[hub].getDistance(nodes[i]) + nodes[hub].getDistance(nodes[j]) - nodes[i].getDistance(nodes[j]);
+					if (saving > 0) {
+						pairS[size] = i;
+						pairT[size] = j;
+						// 最小ヒープなので、符号を反転して節約量の大きい順に取り出します。
+						heap.add(size, -saving);
+						size++;
+					}
+				}
+			}
+
+			// 部分路の端点であれば、もう一方の端点
+			int[] end = new int[n];
+			for (int i = 0; i < n; i++) {
+				end[i] = i;
+			}
+			int[] adjacent = new int[2 * n];
+			for (int i = 0; i < adjacent.length; i++) {
+				adjacent[i] = -1;
+			}
+			int[] degree = new int[n];
+			while (!heap.isEmpty()) {
+				int pair = heap.poll();
+				int s = pairS[pair];
+				int t = pairT[pair];
+				if (degree[s] < 2 && degree[t] < 2 && end[s] != t) {
+					adjacent[2 * s + degree[s]++] = t;
+					adjacent[2 * t + degree[t]++] = s;
+					int endS = end[s];
+					int endT = end[t];
+					end[endS] = endT;
+					end[endT] = endS;
+				}
+			}
+
+			// ハブから始めて、部分路を連結します。
+			route.add(nodes[hub]);
+			// ハブを部分路の内部の頂点として扱い、部分路の連結から除外します。
+			degree[hub] = 2;
+			TspBase.connect(nodes, xs, ys, adjacent, degree, route);
+		}
+		return route;
+	}
+
+	@Override
+	public String toString() {
+		return "savings";
+	}
+}
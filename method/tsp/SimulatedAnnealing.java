@@ -0,0 +1,257 @@
+package method.tsp;
+
+import java.util.List;
+import java.util.Random;
+import model.Node;
+import model.Tour;
+
+
+/**
+ * 焼きなまし法による巡回セールスマン問題の改善法です。
+ * 頂点とその候補近傍リストの頂点を無作為に選び、2-OptまたはOr-Optの交換の変化量をO(1)で評価します。
+ * 改善する交換は常に受理し、改悪する交換は温度に応じた確率で受理するため、局所最適解から抜け出せます。
+ * 指定した時間が経過するまで探索し、見つかった最良の巡回路を返します。
+ * 探索中のループでは配列を確保せず、最良の巡回路は現在の巡回路が最良の状態から離れるときにのみ保存します。
+ * @author ma38su
+ */
+public class SimulatedAnnealing implements TspImprovement, TimeLimited {
+
+	/**
+	 * 改善とみなす最小の変化量
+	 */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * 候補近傍リストの頂点あたりの候補の数
+	 */
+	private static final int CANDIDATES = 8;
+
+	/**
+	 * Or-Optで移動する部分路の最大の長さ
+	 */
+	private static final int MAX_SEGMENT = 3;
+
+	/**
+	 * 経過時間を確認し、温度を更新する間隔（反復回数 - 1）
+	 */
+	private static final int CHECK_MASK = 0x3FF;
+
+	/**
+	 * 探索する時間（ms）
+	 */
+	private final long time;
+
+	/**
+	 * 冷却スケジュール
+	 */
+	private final CoolingSchedule schedule;
+
+	/**
+	 * 乱数
+	 */
+	private final Random rand;
+
+	/**
+	 * 距離テーブルごとに作成した候補近傍リスト
+	 */
+	private final CandidateCache candidateCache = new CandidateCache(CANDIDATES);
+
+	/**
+	 * コンストラクタ
+	 * 10秒間、指数的に冷却して探索します。
+	 */
+	public SimulatedAnnealing() {
+		this(10000, CoolingSchedule.geometric(0.5, 0.002), 0);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param time 探索する時間（ms）
+	 * @param schedule 冷却スケジュール
+	 * @param seed 乱数のシード
+	 */
+	public SimulatedAnnealing(long time, CoolingSchedule schedule, long seed) {
+		this.time = time;
+		this.schedule = schedule;
+		this.rand = new Random(seed);
+	}
+
+	public boolean method(List<Node> route) {
+		Node[] nodes = route.toArray(new Node[]{});
+		int[] order = new int[nodes.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		DistanceTable table = new CoordinateDistanceTable(nodes);
+		if (this.method(order, table, this.candidateCache.get(table)) < 0) {
+			for (int i = 0; i < nodes.length; i++) {
+				route.set(i, nodes[order[i]]);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	public double method(int[] route, DistanceTable table) {
+		return this.method(route, table, this.candidateCache.get(table));
+	}
+
+	public double method(Tour tour, DistanceTable table) {
+		int[] route = tour.toArray();
+		double delta = this.method(route, table, this.candidateCache.get(table));
+		if (delta < 0) {
+			TspBase.set(tour, route);
+		}
+		return delta;
+	}
+
+	/**
+	 * 指定した時間が経過するまで焼きなまし法で探索し、最良の巡回路に置き換えます。
+	 * @param route 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(int[] route, DistanceTable table, CandidateList candidates) {
+		int length = route.length;
+		if (length < 8) {
+			return 0;
+		}
+		int[] position = new int[length];
+		for (int i = 0; i < length; i++) {
+			position[route[i]] = i;
+		}
+		int[] best = new int[length];
+		int[] neighbors = candidates.getNeighbors();
+		Random rand = this.rand;
+		double current = new TourLength(route, table).get();
+		double initial = current;
+		double bestLength = current;
+		// 現在の巡回路が最良の巡回路である場合はtrue
+		boolean isBest = true;
+		// 最良の巡回路をbestに保存している場合はtrue、現在の巡回路が最良でなければ常に保存しています
+		boolean isSaved = false;
+		double scale = current / length;
+		long start = System.nanoTime();
+		long budget = this.time * 1000000L;
+		double temperature = this.schedule.get(0) * scale;
+		for (long iteration = 0; ; iteration++) {
+			if ((iteration & CHECK_MASK) == 0) {
+				long elapsed = System.nanoTime() - start;
+				if (elapsed >= budget) {
+					break;
+				}
+				temperature = this.schedule.get((double) elapsed / budget) * scale;
+			}
+			int a = rand.nextInt(length);
+			int begin = candidates.begin(a);
+			int size = candidates.end(a) - begin;
+			if (size == 0) {
+				continue;
+			}
+			int c = neighbors[begin + rand.nextInt(size)];
+			int type = rand.nextInt(4);
+			double delta;
+			if (type < 2) {
+				// 2-Opt: 辺(a, b)、(c, d)を辺(a, c)、(b, d)に置き換えます。
+				boolean isForward = type == 0;
+				int b = isForward ? route[(position[a] + 1) % length] : route[(position[a] + length - 1) % length];
+				int d = isForward ? route[(position[c] + 1) % length] : route[(position[c] + length - 1) % length];
+				if (c == b || d == a) {
+					continue;
+				}
+				delta = table.get(a, c) + table.get(b, d) - table.get(a, b) - table.get(c, d);
+				if (!this.accept(delta, temperature)) {
+					continue;
+				}
+				if (isBest && !isSaved && delta > -EPSILON) {
+					System.arraycopy(route, 0, best, 0, length);
+					isSaved = true;
+				}
+				if (isForward) {
+					Opt2.reverse(route, position, position[b], position[c]);
+				} else {
+					Opt2.reverse(route, position, position[a], position[d]);
+				}
+			} else {
+				// Or-Opt: aを端点とする部分路を、候補cの前後に移動します。
+				int count = 1 + rand.nextInt(MAX_SEGMENT);
+				boolean isFirst = rand.nextBoolean();
+				int i = isFirst ? position[a] : (position[a] - count + 1 + length) % length;
+				int p = route[(i + length - 1) % length];
+				int f = route[i];
+				int l = route[(i + count - 1) % length];
+				int nx = route[(i + count) % length];
+				int y = isFirst ? l : f;
+				int gap = (position[c] - position[l] + length) % length;
+				if (gap == 0 || gap > length - count) {
+					// 候補が部分路に含まれる
+					continue;
+				}
+				double removal = table.get(p, f) + table.get(l, nx) - table.get(p, nx);
+				if (type == 2) {
+					// cの後続の頂点との間に挿入します（c, a, ..., y, e）。
+					if (c == p) {
+						continue;
+					}
+					int e = route[(position[c] + 1) % length];
+					delta = table.get(c, a) + table.get(y, e) - table.get(c, e) - removal;
+				} else {
+					// cの先行する頂点との間に挿入します（e, y, ..., a, c）。
+					if (c == nx) {
+						continue;
+					}
+					int e = route[(position[c] + length - 1) % length];
+					delta = table.get(e, y) + table.get(a, c) - table.get(e, c) - removal;
+				}
+				if (!this.accept(delta, temperature)) {
+					continue;
+				}
+				if (isBest && !isSaved && delta > -EPSILON) {
+					System.arraycopy(route, 0, best, 0, length);
+					isSaved = true;
+				}
+				if (type == 2) {
+					OrOpt.move(route, position, i, count, gap, !isFirst);
+				} else {
+					OrOpt.move(route, position, i, count, gap - 1, isFirst);
+				}
+			}
+			current += delta;
+			if (current < bestLength - EPSILON) {
+				bestLength = current;
+				isBest = true;
+				isSaved = false;
+			} else if (delta > -EPSILON) {
+				isBest = false;
+			}
+		}
+		if (!isBest) {
+			System.arraycopy(best, 0, route, 0, length);
+		}
+		if (bestLength >= initial - EPSILON) {
+			return 0;
+		}
+		// 長さは多数の交換の変化量を累積しているため、最良の巡回路の長さを1回だけ求め直して変化量を返します。
+		return new TourLength(route, table).get() - initial;
+	}
+
+	/**
+	 * 交換を受理するか判定します。
+	 * 改善する交換は常に受理し、改悪する交換はexp(-delta / temperature)の確率で受理します。
+	 * @param delta 巡回路の長さの変化量
+	 * @param temperature 温度
+	 * @return 受理する場合はtrue
+	 */
+	private boolean accept(double delta, double temperature) {
+		if (delta <= 0) {
+			return true;
+		}
+		return delta < 20 * temperature && this.rand.nextDouble() < Math.exp(-delta / temperature);
+	}
+
+	@Override
+	public String toString() {
+		return "Simulated Annealing";
+	}
+}
@@ -0,0 +1,11 @@
+package method.tsp;
+
+
+/**
+ * 指定した時間が経過するまで探索する改善法を表すインターフェースです。
+ * 1回の呼び出しで指定した時間を使い切るため、改善できなくなるまで繰り返し呼び出すと探索が終わりません。
+ * 呼び出し側は、このインターフェースを実装した改善法を1回だけ呼び出します。
+ * @author ma38su
+ */
+public interface TimeLimited {
+}
@@ -0,0 +1,131 @@
+package method.tsp;
+
+import model.Tour;
+
+
+/**
+ * 改善法が返す変化量で更新する巡回路の長さです。
+ * 巡回路を更新するたびに全体の長さを求め直すとO(n)かかるため、交換の変化量を加えてO(1)で更新します。
+ * 変化量の加算により浮動小数点数の誤差が蓄積するので、一定の回数更新するごとに全体の長さを求め直します。
+ * @author ma38su
+ */
+public class TourLength {
+
+	/**
+	 * 全体の長さを求め直すまでの更新の回数
+	 */
+	private static final int INTERVAL = 1000;
+
+	/**
+	 * 巡回路、配列で表す場合はnull
+	 */
+	private final Tour tour;
+
+	/**
+	 * 距離テーブル
+	 */
+	private final DistanceTable table;
+
+	/**
+	 * 配列で表す巡回路、Tourで表す場合はnull
+	 */
+	private final int[] route;
+
+	/**
+	 * 巡回路の長さ
+	 */
+	private double length;
+
+	/**
+	 * 全体の長さを求めてからの更新の回数
+	 */
+	private int count;
+
+	/**
+	 * コンストラクタ
+	 * 巡回路全体の長さを求めます。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 */
+	public TourLength(Tour tour, DistanceTable table) {
+		this.tour = tour;
+		this.table = table;
+		this.route = null;
+		this.resum();
+	}
+
+	/**
+	 * コンストラクタ
+	 * 配列で表す巡回路全体の長さを求めます。
+	 * @param route 配列で表す巡回路
+	 * @param table 距離テーブル
+	 */
+	public TourLength(int[] route, DistanceTable table) {
+		this.tour = null;
+		this.table = table;
+		this.route = route;
+		this.resum();
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param route 配列で表す巡回路
+	 * @param table 距離テーブル
+	 * @param length 巡回路の長さ
+	 */
+	public TourLength(int[] route, DistanceTable table, double length) {
+		this.tour = null;
+		this.table = table;
+		this.route = route;
+		this.length = length;
+	}
+
+	/**
+	 * 巡回路の長さを返します。
+	 * @return 巡回路の長さ
+	 */
+	public double get() {
+		return this.length;
+	}
+
+	/**
+	 * 巡回路の長さに変化量を加えます。
+	 * 更新の回数が一定に達すると、全体の長さを求め直します。
+	 * @param delta 巡回路の長さの変化量
+	 */
+	public void add(double delta) {
+		this.length += delta;
+		if (++this.count >= INTERVAL) {
+			this.resum();
+		}
+	}
+
+	/**
+	 * 巡回路全体の長さを求め直し、蓄積した誤差を取り除きます。
+	 * O(n)で実行します。
+	 */
+	public void resum() {
+		double length = 0;
+		if (this.tour != null) {
+			int n = this.tour.size();
+			if (n > 0) {
+				int first = this.tour.get(0);
+				int node = first;
+				for (int i = 0; i < n; i++) {
+					int next = this.tour.next(node);
+					length += this.table.get(node, next);
+					node = next;
+				}
+				assert node == first;
+			}
+		} else if (this.route.length > 0) {
+			int previous = this.route[this.route.length - 1];
+			for (int next : this.route) {
+				length += this.table.get(previous, next);
+				previous = next;
+			}
+		}
+		this.length = length;
+		this.count = 0;
+	}
+}
@@ -0,0 +1,132 @@
+package method.tsp;
+
+import model.Node;
+
+
+/**
+ * 頂点間の距離を1つの配列に上三角行列として格納する距離テーブルです。
+ * 距離は対称なので i < j の距離のみを保持し、頂点iの行を配列上で連続に並べます。
+ * 2次元配列の距離テーブルに比べて、倍精度で約2分の1、単精度で約4分の1のメモリで格納できます。
+ * 座標から距離を求める距離テーブルを写す場合は、行ごとにまとめて距離を求めます。
+ * 格納できる距離の数はint型の配列の大きさで制限されるため、頂点の数はMAX_SIZEまでです。
+ * @author ma38su
+ */
+public class TriangularDistanceTable implements DistanceTable {
+
+	/**
+	 * 格納できる頂点の最大の数
+	 */
+	public static final int MAX_SIZE = 65535;
+
+	/**
+	 * 頂点の数
+	 */
+	private final int size;
+
+	/**
+	 * 頂点iの行の開始位置からi + 1を引いた位置、頂点i、j（i < j）の距離はoffsets[i] + jに格納します。
+	 */
+	private final int[] offsets;
+
+	/**
+	 * 倍精度で格納した距離、単精度で格納する場合はnull
+	 */
+	private final double[] doubles;
+
+	/**
+	 * 単精度で格納した距離、倍精度で格納する場合はnull
+	 */
+	private final float[] floats;
+
+	/**
+	 * コンストラクタ
+	 * 頂点の座標から距離を倍精度で格納します。
+	 * @param nodes 頂点配列
+	 */
+	public TriangularDistanceTable(Node[] nodes) {
+		this(nodes, false);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 頂点の座標から距離を格納します。
+	 * @param nodes 頂点配列
+	 * @param isFloat 単精度で格納する場合はtrue
+	 */
+	public TriangularDistanceTable(Node[] nodes, boolean isFloat) {
+		this(new CoordinateDistanceTable(nodes), isFloat);
+	}
+
+	/**
+	 * コンストラクタ
+	 * 距離テーブルの距離を写して格納します。
+	 * @param table 距離テーブル
+	 * @param isFloat 単精度で格納する場合はtrue
+	 */
+	public TriangularDistanceTable(DistanceTable table, boolean isFloat) {
+		int n = table.size();
+		if (n > MAX_SIZE) {
+			throw new IllegalArgumentException("too many nodes: " + n);
+		}
+		int count = (int) ((long) n * (n - 1) / 2);
+		this.size = n;
+		this.offsets = new int[n];
+		int offset = 0;
+		for (int i = 0; i < n; i++) {
+			this.offsets[i] = offset - i - 1;
+			offset += n - i - 1;
+		}
+		// 行は配列上で連続しているため、座標から距離を求める距離テーブルであれば行ごとに直接格納します。
+		CoordinateDistanceTable coordinate = table instanceof CoordinateDistanceTable ? (CoordinateDistanceTable) table : null;
+		if (isFloat) {
+			this.doubles = null;
+			this.floats = new float[count];
+			for (int i = 0; i < n; i++) {
+				int base = this.offsets[i];
+				if (coordinate != null) {
+					coordinate.getRow(i, i + 1, n, this.floats, base + i + 1);
+				} else {
+					for (int j = i + 1; j < n; j++) {
+						this.floats[base + j] = (float) table.get(i, j);
+					}
+				}
+			}
+		} else {
+			this.doubles = new double[count];
+			this.floats = null;
+			for (int i = 0; i < n; i++) {
+				int base = this.offsets[i];
+				if (coordinate != null) {
+					coordinate.getRow(i, i + 1, n, this.doubles, base + i + 1);
+				} else {
+					for (int j = i + 1; j < n; j++) {
+						this.doubles[base + j] = table.get(i, j);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 単精度で格納しているか判定します。
+	 * @return 単精度で格納していればtrue
+	 */
+	public boolean isFloat() {
+		return this.floats != null;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public double get(int i, int j) {
+		if (i == j) {
+			return 0;
+		}
+		int index = i < j ? this.offsets[i] + j : this.offsets[j] + i;
+		if (this.floats != null) {
+			return this.floats[index];
+		}
+		return this.doubles[index];
+	}
+}
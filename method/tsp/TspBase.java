@@ -1,15 +1,158 @@
 package method.tsp;
 
+import java.util.List;
 import model.Node;
+import model.Tour;
+import util.KdTree;
 
 public class TspBase {
-	public double[][] getCostTable(Node[] nodes) {
-		double[][] table = new double[nodes.length][nodes.length];
+
+	/**
+	 * 構築法でパネルに巡回路を表示する回数の上限
+	 */
+	static final int FRAMES = 1000;
+
+	/**
+	 * 距離を倍精度で格納する距離テーブルを作成します。
+	 * @param nodes 頂点配列
+	 * @return 距離テーブル
+	 */
+	public static DistanceTable getCostTable(Node[] nodes) {
+		return TspBase.getCostTable(nodes, false);
+	}
+
+	/**
+	 * 頂点の数に応じて距離テーブルを作成します。
+	 * 上三角行列の距離テーブルが最大ヒープの4分の1に収まれば上三角行列として格納し、
+	 * 収まらなければ距離を保持せず、参照するたびに座標から距離を求める距離テーブルを作成します。
+	 * @param nodes 頂点配列
+	 * @param isFloat 上三角行列に単精度で格納する場合はtrue
+	 * @return 距離テーブル
+	 */
+	public static DistanceTable getCostTable(Node[] nodes, boolean isFloat) {
+		long bytes = (isFloat ? 4L : 8L) * nodes.length * (nodes.length - 1) / 2;
+		if (bytes <= Runtime.getRuntime().maxMemory() / 4 && nodes.length <= TriangularDistanceTable.MAX_SIZE) {
+			return new TriangularDistanceTable(nodes, isFloat);
+		}
+		return new CoordinateDistanceTable(nodes);
+	}
+
+	/**
+	 * 2-Optの交換を行います。
+	 * 巡回路のいずれかの向きでbがaの次、dがcの次の頂点であるとき、
+	 * 辺(a, b)、(c, d)を辺(a, c)、(b, d)に置き換えます。
+	 * @param tour 巡回路
+	 * @param a 頂点
+	 * @param b aに隣接する頂点
+	 * @param c 頂点
+	 * @param d cに隣接する頂点
+	 */
+	static void exchange(Tour tour, int a, int b, int c, int d) {
+		if (tour.next(a) == b) {
+			tour.reverse(b, c);
+		} else {
+			tour.reverse(c, b);
+		}
+	}
+
+	/**
+	 * 頂点のdon't look bitを外し、キューの末尾に追加します。
+	 * 既にキューに含まれる頂点は追加しません。
+	 * @param queue 探索する頂点のキュー
+	 * @param isQueued キューに含まれる頂点
+	 * @param head キューの先頭の位置
+	 * @param count キューに含まれる頂点の数
+	 * @param node 頂点
+	 * @return 追加後のキューに含まれる頂点の数
+	 */
+	static int enqueue(int[] queue, boolean[] isQueued, int head, int count, int node) {
+		if (!isQueued[node]) {
+			isQueued[node] = true;
+			queue[(head + count) % queue.length] = node;
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * 巡回路を指定した訪問順に並べ替えます。
+	 * 先頭から順に、次に訪問する頂点が異なれば2-Optの交換で隣接させるため、交換は高々n - 1回です。
+	 * @param tour 巡回路
+	 * @param order 訪問順に並べた頂点
+	 */
+	static void set(Tour tour, int[] order) {
+		for (int i = 0; i + 2 < order.length; i++) {
+			int a = order[i];
+			int c = order[i + 1];
+			// 並べ終えた頂点order[0..i]と反対側のaの隣接頂点
+			int b = tour.next(a);
+			boolean isForward = i == 0 ? tour.prev(a) != c : b != order[i - 1];
+			if (!isForward) {
+				b = tour.prev(a);
+			}
+			if (b != c) {
+				TspBase.exchange(tour, a, b, c, isForward ? tour.next(c) : tour.prev(c));
+			}
+		}
+	}
+
+	/**
+	 * 連結リストで表現された巡回路をリストに変換します。
+	 * @param nodes 頂点配列
+	 * @param next 次の頂点
+	 * @param start 開始する頂点
+	 * @param size 巡回路の頂点数
+	 * @param route 変換したリスト
+	 * @return 変換したリスト
+	 */
+	static List<Node> toList(Node[] nodes, int[] next, int start, int size, List<Node> route) {
+		route.clear();
+		int node = start;
+		for (int i = 0; i < size; i++) {
+			route.add(nodes[node]);
+			node = next[node];
+		}
+		return route;
+	}
+
+	/**
+	 * 部分路の集合を連結して巡回路を求めます。
+	 * 部分路の端点をk-d木で管理し、部分路の終点から最も近い端点の部分路を順に連結します。
+	 * 次数が2の頂点は部分路の内部の頂点として扱い、部分路の始点にはなりません。
+	 * @param nodes 頂点配列
+	 * @param xs X座標
+	 * @param ys Y座標
+	 * @param adjacent 頂点iに隣接する頂点をadjacent[2i]、adjacent[2i + 1]に格納した配列、なければ-1
+	 * @param degree 頂点の次数
+	 * @param route 巡回路を追加するリスト
+	 */
+	static void connect(Node[] nodes, int[] xs, int[] ys, int[] adjacent, int[] degree, List<Node> route) {
+		KdTree tree = new KdTree(xs, ys);
+		int node = -1;
 		for (int i = 0; i < nodes.length; i++) {
-			for (int j = 0; j < nodes.length; j++) {
-				table[i][j] = nodes[i].getDistance(nodes[j]);
+			if (degree[i] == 2) {
+				tree.remove(i);
+			} else if (node < 0) {
+				node = i;
+			}
+		}
+		while (node >= 0) {
+			tree.remove(node);
+			int prev = -1;
+			while (true) {
+				route.add(nodes[node]);
+				int next = adjacent[2 * node];
+				if (next == prev) {
+					next = adjacent[2 * node + 1];
+				}
+				if (next < 0) {
+					break;
+				}
+				prev = node;
+				node = next;
 			}
+			tree.remove(node);
+			node = tree.nearest(xs[node], ys[node]);
 		}
-		return table;
 	}
 }
@@ -2,6 +2,7 @@ package method.tsp;
 
 import java.util.List;
 import model.Node;
+import model.Tour;
 
 
 /**
@@ -11,5 +12,30 @@ import model.Node;
  */
 public interface TspImprovement {
 	public boolean method(List<Node> route);
-	public boolean method(int[] route, double[][] table);
+
+	/**
+	 * 距離テーブルを用いて巡回路を改善します。
+	 * @param route 巡回路
+	 * @param table 距離テーブル
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(int[] route, DistanceTable table);
+
+	/**
+	 * 候補近傍リストを用いて巡回路を改善します。
+	 * @param route 巡回路
+	 * @param table 距離テーブル
+	 * @param candidates 候補近傍リスト
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(int[] route, DistanceTable table, CandidateList candidates);
+
+	/**
+	 * 巡回路を改善します。
+	 * 巡回路の長さの変化量を返すため、呼び出し側は巡回路の長さを再計算せずに更新できます。
+	 * @param tour 巡回路
+	 * @param table 距離テーブル
+	 * @return 巡回路の長さの変化量、改善できなければ0
+	 */
+	public double method(Tour tour, DistanceTable table);
 }
@@ -0,0 +1,98 @@
+package model;
+
+
+/**
+ * 訪問順の配列と、頂点の位置の配列で表す巡回路です。
+ * 前後の頂点と位置の比較はO(1)、区間の反転は短い側を反転するためO(n)で実行できます。
+ * @author ma38su
+ */
+public class ArrayTour implements Tour {
+
+	/**
+	 * 訪問順に並べた頂点
+	 */
+	private final int[] order;
+
+	/**
+	 * 頂点の巡回路における位置
+	 */
+	private final int[] position;
+
+	/**
+	 * コンストラクタ
+	 * @param order 訪問順に並べた頂点、0からn - 1の順列
+	 */
+	public ArrayTour(int[] order) {
+		int n = order.length;
+		this.order = order.clone();
+		this.position = new int[n];
+		for (int i = 0; i < n; i++) {
+			this.position[order[i]] = i;
+		}
+	}
+
+	public int size() {
+		return this.order.length;
+	}
+
+	public int get(int index) {
+		return this.order[index];
+	}
+
+	public int next(int node) {
+		int i = this.position[node] + 1;
+		return this.order[i == this.order.length ? 0 : i];
+	}
+
+	public int prev(int node) {
+		int i = this.position[node];
+		return this.order[(i == 0 ? this.order.length : i) - 1];
+	}
+
+	public boolean between(int a, int b, int c) {
+		int pa = this.position[a];
+		int pb = this.position[b];
+		int pc = this.position[c];
+		if (pa <= pc) {
+			return pa <= pb && pb <= pc;
+		} else {
+			return pa <= pb || pb <= pc;
+		}
+	}
+
+	public void reverse(int a, int b) {
+		int n = this.order.length;
+		int s = this.position[a];
+		int t = this.position[b];
+		int inner = t - s;
+		if (inner < 0) {
+			inner += n;
+		}
+		inner++;
+		if (inner * 2 > n) {
+			// 区間の外側を反転しても同じ巡回路になるため、短い側を反転します。
+			int tmp = t + 1 == n ? 0 : t + 1;
+			t = s == 0 ? n - 1 : s - 1;
+			s = tmp;
+			inner = n - inner;
+		}
+		for (int k = inner / 2; k > 0; k--) {
+			int u = this.order[s];
+			int v = this.order[t];
+			this.order[s] = v;
+			this.position[v] = s;
+			this.order[t] = u;
+			this.position[u] = t;
+			if (++s == n) {
+				s = 0;
+			}
+			if (--t < 0) {
+				t = n - 1;
+			}
+		}
+	}
+
+	public int[] toArray() {
+		return this.order.clone();
+	}
+}
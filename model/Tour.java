@@ -0,0 +1,61 @@
+package model;
+
+
+/**
+ * 巡回路を表すインターフェースです。
+ * 頂点はインデックスで表し、巡回路の向きに沿って前後の頂点を求めます。
+ * 区間の反転では、実装によって巡回路全体の向きが変わることがあります。
+ * @author ma38su
+ */
+public interface Tour {
+
+	/**
+	 * 巡回路の頂点の数を返します。
+	 * @return 頂点の数
+	 */
+	public int size();
+
+	/**
+	 * 巡回路の指定した位置の頂点を返します。
+	 * @param index 位置
+	 * @return 頂点
+	 */
+	public int get(int index);
+
+	/**
+	 * 巡回路で次に訪問する頂点を返します。
+	 * @param node 頂点
+	 * @return 次に訪問する頂点
+	 */
+	public int next(int node);
+
+	/**
+	 * 巡回路で前に訪問する頂点を返します。
+	 * @param node 頂点
+	 * @return 前に訪問する頂点
+	 */
+	public int prev(int node);
+
+	/**
+	 * 頂点aから巡回路の向きに頂点cまでたどるとき、頂点bを通るか確認します。
+	 * @param a 始点
+	 * @param b 確認する頂点
+	 * @param c 終点
+	 * @return 頂点bを通ればtrue（a、cと一致する場合を含む）
+	 */
+	public boolean between(int a, int b, int c);
+
+	/**
+	 * 頂点aから巡回路の向きに頂点bまでの区間を反転します。
+	 * aの前の頂点をp、bの次の頂点をqとすると、辺(p, a)、(b, q)が辺(p, b)、(a, q)に置き換わります。
+	 * @param a 区間の始点
+	 * @param b 区間の終点
+	 */
+	public void reverse(int a, int b);
+
+	/**
+	 * 巡回路を訪問順に並べた配列を返します。
+	 * @return 訪問順に並べた頂点
+	 */
+	public int[] toArray();
+}
@@ -0,0 +1,48 @@
+package model;
+
+
+/**
+ * 頂点の数に応じて巡回路の表現を選ぶクラスです。
+ * 頂点の数が閾値以下であれば配列で、閾値を超えれば2レベル双方向リストで巡回路を表します。
+ * @author ma38su
+ */
+public class TourFactory {
+
+	/**
+	 * 2レベル双方向リストを用いる頂点の数の既定の閾値
+	 */
+	public static final int DEFAULT_THRESHOLD = 50000;
+
+	/**
+	 * 2レベル双方向リストを用いる頂点の数の閾値
+	 */
+	private final int threshold;
+
+	/**
+	 * コンストラクタ
+	 */
+	public TourFactory() {
+		this(DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param threshold 2レベル双方向リストを用いる頂点の数の閾値
+	 */
+	public TourFactory(int threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * 巡回路を作ります。
+	 * @param order 訪問順に並べた頂点、0からn - 1の順列
+	 * @return 巡回路
+	 */
+	public Tour create(int[] order) {
+		if (order.length > this.threshold) {
+			return new TwoLevelListTour(order);
+		} else {
+			return new ArrayTour(order);
+		}
+	}
+}
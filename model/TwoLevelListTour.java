@@ -0,0 +1,363 @@
+package model;
+
+
+/**
+ * 2レベル双方向リストで表す巡回路です。
+ * 巡回路を約√n頂点の区間に分割し、区間ごとに反転フラグを持たせます。
+ * 区間の頂点は共有する配列の連続した範囲に格納し、区間の順序は双方向リストで管理します。
+ * 区間の反転は、端点で区間を分割したうえで、区間の並びを逆にして反転フラグを切り替えるため、O(√n)で実行できます。
+ * 分割により区間の数が増えすぎた場合は、巡回路の順に区間を作り直します。
+ * @author ma38su
+ */
+public class TwoLevelListTour implements Tour {
+
+	/**
+	 * 区間ごとに連続して格納した頂点
+	 */
+	private int[] nodes;
+
+	/**
+	 * 頂点の配列nodesにおける位置
+	 */
+	private final int[] index;
+
+	/**
+	 * 頂点を含む区間
+	 */
+	private final int[] parent;
+
+	/**
+	 * 区間の範囲の最小のインデックス
+	 */
+	private final int[] lo;
+
+	/**
+	 * 区間の範囲の最大のインデックス + 1
+	 */
+	private final int[] hi;
+
+	/**
+	 * 区間の反転フラグ、trueであれば配列の逆順に訪問します。
+	 */
+	private final boolean[] reversed;
+
+	/**
+	 * 次に訪問する区間
+	 */
+	private final int[] segmentNext;
+
+	/**
+	 * 前に訪問する区間
+	 */
+	private final int[] segmentPrev;
+
+	/**
+	 * 区間の順位、巡回路の向きに沿って巡回的に増加します。
+	 */
+	private final int[] rank;
+
+	/**
+	 * 順位が0の区間
+	 */
+	private int head;
+
+	/**
+	 * 区間の数
+	 */
+	private int count;
+
+	/**
+	 * 作り直す前の区間の数の上限
+	 */
+	private final int maxCount;
+
+	/**
+	 * コンストラクタ
+	 * @param order 訪問順に並べた頂点、0からn - 1の順列
+	 */
+	public TwoLevelListTour(int[] order) {
+		int n = order.length;
+		this.index = new int[n];
+		this.parent = new int[n];
+		int segments = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+		this.maxCount = 2 * segments;
+		// 反転のたびに区間は2つまで増えるため、上限を超えた分も格納できるようにします。
+		int capacity = this.maxCount + 2;
+		this.lo = new int[capacity];
+		this.hi = new int[capacity];
+		this.reversed = new boolean[capacity];
+		this.segmentNext = new int[capacity];
+		this.segmentPrev = new int[capacity];
+		this.rank = new int[capacity];
+		this.build(order.clone());
+	}
+
+	/**
+	 * 訪問順に並べた頂点から、大きさのそろった区間を作ります。
+	 * @param order 訪問順に並べた頂点
+	 */
+	private void build(int[] order) {
+		int n = order.length;
+		this.nodes = order;
+		int segments = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+		int size = (n + segments - 1) / Math.max(1, segments);
+		this.count = 0;
+		for (int start = 0; start < n || this.count == 0; start += size) {
+			int s = this.count++;
+			this.lo[s] = start;
+			this.hi[s] = Math.min(n, start + size);
+			this.reversed[s] = false;
+			this.rank[s] = s;
+			for (int i = this.lo[s]; i < this.hi[s]; i++) {
+				this.index[order[i]] = i;
+				this.parent[order[i]] = s;
+			}
+			if (size == 0) {
+				break;
+			}
+		}
+		for (int s = 0; s < this.count; s++) {
+			this.segmentNext[s] = s + 1 == this.count ? 0 : s + 1;
+			this.segmentPrev[s] = s == 0 ? this.count - 1 : s - 1;
+		}
+		this.head = 0;
+	}
+
+	public int size() {
+		return this.nodes.length;
+	}
+
+	public int get(int index) {
+		int s = this.head;
+		while (index >= this.hi[s] - this.lo[s]) {
+			index -= this.hi[s] - this.lo[s];
+			s = this.segmentNext[s];
+		}
+		return this.reversed[s] ? this.nodes[this.hi[s] - 1 - index] : this.nodes[this.lo[s] + index];
+	}
+
+	/**
+	 * 区間で最初に訪問する頂点を返します。
+	 * @param s 区間
+	 * @return 最初に訪問する頂点
+	 */
+	private int first(int s) {
+		return this.reversed[s] ? this.nodes[this.hi[s] - 1] : this.nodes[this.lo[s]];
+	}
+
+	/**
+	 * 区間で最後に訪問する頂点を返します。
+	 * @param s 区間
+	 * @return 最後に訪問する頂点
+	 */
+	private int last(int s) {
+		return this.reversed[s] ? this.nodes[this.lo[s]] : this.nodes[this.hi[s] - 1];
+	}
+
+	public int next(int node) {
+		int s = this.parent[node];
+		int i = this.index[node];
+		if (this.reversed[s]) {
+			return i > this.lo[s] ? this.nodes[i - 1] : this.first(this.segmentNext[s]);
+		} else {
+			return i + 1 < this.hi[s] ? this.nodes[i + 1] : this.first(this.segmentNext[s]);
+		}
+	}
+
+	public int prev(int node) {
+		int s = this.parent[node];
+		int i = this.index[node];
+		if (this.reversed[s]) {
+			return i + 1 < this.hi[s] ? this.nodes[i + 1] : this.last(this.segmentPrev[s]);
+		} else {
+			return i > this.lo[s] ? this.nodes[i - 1] : this.last(this.segmentPrev[s]);
+		}
+	}
+
+	/**
+	 * 区間における頂点の訪問順の位置を返します。
+	 * @param node 頂点
+	 * @return 区間の最初の頂点を0とする位置
+	 */
+	private int offset(int node) {
+		int s = this.parent[node];
+		return this.reversed[s] ? this.hi[s] - 1 - this.index[node] : this.index[node] - this.lo[s];
+	}
+
+	/**
+	 * 巡回的に比較できる頂点の順序を返します。
+	 * @param node 頂点
+	 * @return 区間の順位と区間における位置から求めた順序
+	 */
+	private long key(int node) {
+		return (long) this.rank[this.parent[node]] * this.nodes.length + this.offset(node);
+	}
+
+	public boolean between(int a, int b, int c) {
+		long ka = this.key(a);
+		long kb = this.key(b);
+		long kc = this.key(c);
+		if (ka <= kc) {
+			return ka <= kb && kb <= kc;
+		} else {
+			return ka <= kb || kb <= kc;
+		}
+	}
+
+	public void reverse(int a, int b) {
+		int q = this.next(b);
+		if (q == a) {
+			// 巡回路全体の反転は同じ巡回路になります。
+			return;
+		}
+		if (this.parent[a] == this.parent[b] && this.offset(a) <= this.offset(b)) {
+			// 区間内の反転は、配列の範囲を反転します。
+			int s = this.index[a];
+			int t = this.index[b];
+			if (s > t) {
+				int tmp = s;
+				s = t;
+				t = tmp;
+			}
+			for (; s < t; s++, t--) {
+				int u = this.nodes[s];
+				int v = this.nodes[t];
+				this.nodes[s] = v;
+				this.index[v] = s;
+				this.nodes[t] = u;
+				this.index[u] = t;
+			}
+			return;
+		}
+		// aを区間の最初、bを区間の最後の頂点にします。
+		this.split(a);
+		this.split(q);
+		int first = this.parent[a];
+		int last = this.parent[b];
+		int length = this.rank[last] - this.rank[first];
+		if (length < 0) {
+			length += this.count;
+		}
+		length++;
+		if (length * 2 > this.count) {
+			// 区間の外側を反転しても同じ巡回路になるため、短い側を反転します。
+			int tmp = this.segmentNext[last];
+			last = this.segmentPrev[first];
+			first = tmp;
+			length = this.count - length;
+		}
+		this.reverseSegments(first, last, length);
+		if (this.count > this.maxCount) {
+			this.build(this.toArray());
+		}
+	}
+
+	/**
+	 * 頂点が区間で最初に訪問する頂点になるように区間を分割します。
+	 * 分割した範囲のうち小さい側を新しい区間とし、その頂点のみ区間を更新します。
+	 * @param node 頂点
+	 */
+	private void split(int node) {
+		int s = this.parent[node];
+		if (this.first(s) == node) {
+			return;
+		}
+		int i = this.index[node];
+		// 配列の範囲[lo, mid)と[mid, hi)に分割します。
+		int mid = this.reversed[s] ? i + 1 : i;
+		// 配列の前半の範囲が巡回路で先に訪問する場合はtrue
+		boolean isLowerFirst = !this.reversed[s];
+		int t = this.count++;
+		this.reversed[t] = this.reversed[s];
+		boolean isLowerNew = mid - this.lo[s] < this.hi[s] - mid;
+		if (isLowerNew) {
+			this.lo[t] = this.lo[s];
+			this.hi[t] = mid;
+			this.lo[s] = mid;
+		} else {
+			this.lo[t] = mid;
+			this.hi[t] = this.hi[s];
+			this.hi[s] = mid;
+		}
+		for (int j = this.lo[t]; j < this.hi[t]; j++) {
+			this.parent[this.nodes[j]] = t;
+		}
+		if (isLowerNew == isLowerFirst) {
+			// 新しい区間をsの前に挿入します。
+			int prev = this.segmentPrev[s];
+			this.segmentNext[prev] = t;
+			this.segmentPrev[t] = prev;
+			this.segmentNext[t] = s;
+			this.segmentPrev[s] = t;
+			if (this.head == s) {
+				this.head = t;
+			}
+		} else {
+			// 新しい区間をsの後に挿入します。
+			int next = this.segmentNext[s];
+			this.segmentNext[s] = t;
+			this.segmentPrev[t] = s;
+			this.segmentNext[t] = next;
+			this.segmentPrev[next] = t;
+		}
+		int r = 0;
+		int u = this.head;
+		do {
+			this.rank[u] = r++;
+			u = this.segmentNext[u];
+		} while (u != this.head);
+	}
+
+	/**
+	 * 区間firstから区間lastまでの区間の並びを逆にし、反転フラグを切り替えます。
+	 * @param first 最初の区間
+	 * @param last 最後の区間
+	 * @param length 区間の数
+	 */
+	private void reverseSegments(int first, int last, int length) {
+		int before = this.segmentPrev[first];
+		int after = this.segmentNext[last];
+		int r = this.rank[first];
+		int s = first;
+		for (int i = 0; i < length; i++) {
+			int next = this.segmentNext[s];
+			this.segmentNext[s] = this.segmentPrev[s];
+			this.segmentPrev[s] = next;
+			this.reversed[s] = !this.reversed[s];
+			s = next;
+		}
+		this.segmentNext[before] = last;
+		this.segmentPrev[last] = before;
+		this.segmentNext[first] = after;
+		this.segmentPrev[after] = first;
+		// 区間が占めていた順位を、新しい並びの順に割り当てます。
+		s = last;
+		for (int i = 0; i < length; i++) {
+			this.rank[s] = r;
+			if (r == 0) {
+				this.head = s;
+			}
+			r = r + 1 == this.count ? 0 : r + 1;
+			s = this.segmentNext[s];
+		}
+	}
+
+	public int[] toArray() {
+		int[] order = new int[this.nodes.length];
+		int k = 0;
+		int s = this.head;
+		do {
+			if (this.reversed[s]) {
+				for (int i = this.hi[s] - 1; i >= this.lo[s]; i--) {
+					order[k++] = this.nodes[i];
+				}
+			} else {
+				for (int i = this.lo[s]; i < this.hi[s]; i++) {
+					order[k++] = this.nodes[i];
+				}
+			}
+			s = this.segmentNext[s];
+		} while (s != this.head);
+		return order;
+	}
+}
@@ -0,0 +1,98 @@
+package model;
+
+
+/**
+ * 区間の反転を記録し、取り消せるようにした巡回路です。
+ * 反転した区間の両側の頂点を記録するため、反転によって巡回路全体の向きが変わっても、
+ * 記録した逆順に辺を置き換え直すことで元の巡回路に戻せます。
+ * 取り消す手間は記録した反転の手間と同じで、巡回路の頂点の数によりません。
+ * @author ma38su
+ */
+public class UndoableTour implements Tour {
+
+	/**
+	 * 反転する巡回路
+	 */
+	private final Tour tour;
+
+	/**
+	 * 反転ごとに、区間の前の頂点、始点、終点、次の頂点を記録します。
+	 */
+	private int[] log;
+
+	/**
+	 * 記録した要素の数
+	 */
+	private int size;
+
+	/**
+	 * コンストラクタ
+	 * @param tour 反転する巡回路
+	 */
+	public UndoableTour(Tour tour) {
+		this.tour = tour;
+		this.log = new int[64];
+	}
+
+	public int size() {
+		return this.tour.size();
+	}
+
+	public int get(int index) {
+		return this.tour.get(index);
+	}
+
+	public int next(int node) {
+		return this.tour.next(node);
+	}
+
+	public int prev(int node) {
+		return this.tour.prev(node);
+	}
+
+	public boolean between(int a, int b, int c) {
+		return this.tour.between(a, b, c);
+	}
+
+	public void reverse(int a, int b) {
+		if (this.size + 4 > this.log.length) {
+			int[] log = new int[this.log.length * 2];
+			System.arraycopy(this.log, 0, log, 0, this.size);
+			this.log = log;
+		}
+		this.log[this.size++] = this.tour.prev(a);
+		this.log[this.size++] = a;
+		this.log[this.size++] = b;
+		this.log[this.size++] = this.tour.next(b);
+		this.tour.reverse(a, b);
+	}
+
+	/**
+	 * 記録した反転を確定し、記録を消去します。
+	 */
+	public void commit() {
+		this.size = 0;
+	}
+
+	/**
+	 * 記録した反転をすべて取り消します。
+	 */
+	public void rollback() {
+		while (this.size > 0) {
+			int q = this.log[--this.size];
+			int b = this.log[--this.size];
+			int a = this.log[--this.size];
+			int p = this.log[--this.size];
+			// 辺(p, b)、(a, q)を辺(p, a)、(b, q)に戻します。
+			if (this.tour.next(p) == b) {
+				this.tour.reverse(b, a);
+			} else {
+				this.tour.reverse(a, b);
+			}
+		}
+	}
+
+	public int[] toArray() {
+		return this.tour.toArray();
+	}
+}
@@ -0,0 +1,194 @@
+package util;
+
+/**
+ * 0からcapacity - 1までの整数をキーとするヒープです。
+ * キーに対して値を持たせ、値が最小のキーを根にしてヒープを構築します。
+ * キーからヒープ上の位置を配列で管理するため、値の更新と削除をO(log n)で行えます。
+ * {@link Heap}と異なり、値は大きくなる方向にも更新できます。
+ * @author ma38su
+ */
+public class IndexedHeap {
+
+	/**
+	 * ヒープ上のキー（1から始まる）
+	 */
+	private final int[] keys;
+
+	/**
+	 * キーの値
+	 */
+	private final double[] values;
+
+	/**
+	 * キーのヒープ上の位置、含まれていなければ0
+	 */
+	private final int[] index;
+
+	/**
+	 * ヒープのサイズ
+	 */
+	private int size;
+
+	/**
+	 * コンストラクタ
+	 * @param capacity キーの最大値 + 1
+	 */
+	public IndexedHeap(int capacity) {
+		this.keys = new int[capacity + 1];
+		this.values = new double[capacity];
+		this.index = new int[capacity];
+		this.size = 0;
+	}
+
+	/**
+	 * keyが存在していれば値を更新し、存在していなければ挿入します。
+	 * @param key キー
+	 * @param value 値
+	 */
+	public void add(int key, double value) {
+		int i = this.index[key];
+		if (i == 0) {
+			i = ++this.size;
+			this.keys[i] = key;
+			this.index[key] = i;
+			this.values[key] = value;
+			this.fixUp(i);
+		} else {
+			double old = this.values[key];
+			this.values[key] = value;
+			if (value < old) {
+				this.fixUp(i);
+			} else if (value > old) {
+				this.fixDown(i);
+			}
+		}
+	}
+
+	/**
+	 * キーを削除します。
+	 * @param key キー
+	 * @return キーが含まれていればtrue
+	 */
+	public boolean remove(int key) {
+		int i = this.index[key];
+		if (i == 0) {
+			return false;
+		}
+		this.index[key] = 0;
+		int last = this.keys[this.size--];
+		if (i <= this.size) {
+			this.keys[i] = last;
+			this.index[last] = i;
+			this.fixUp(i);
+			this.fixDown(this.index[last]);
+		}
+		return true;
+	}
+
+	/**
+	 * ヒープの先頭（根）のキーを削除して取り出します。
+	 * @return ヒープの先頭のキー、空であれば-1
+	 */
+	public int poll() {
+		if (this.size == 0) {
+			return -1;
+		}
+		int key = this.keys[1];
+		this.remove(key);
+		return key;
+	}
+
+	/**
+	 * 削除せずにヒープの先頭（根）のキーを取り出します。
+	 * @return ヒープの先頭のキー、空であれば-1
+	 */
+	public int peek() {
+		return this.size == 0 ? -1 : this.keys[1];
+	}
+
+	/**
+	 * キーの値を返します。
+	 * @param key キー
+	 * @return 値
+	 */
+	public double getValue(int key) {
+		return this.values[key];
+	}
+
+	/**
+	 * @param key 確認するキー
+	 * @return keyが含まれていればtrue
+	 */
+	public boolean contains(int key) {
+		return this.index[key] > 0;
+	}
+
+	/**
+	 * ヒープを空にします。
+	 */
+	public void clear() {
+		for (int i = 1; i <= this.size; i++) {
+			this.index[this.keys[i]] = 0;
+		}
+		this.size = 0;
+	}
+
+	/**
+	 * ヒープが空でないか確かめる。
+	 * @return ヒープに要素がなければtrue
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * ヒープのサイズを返します。
+	 * @return ヒープのサイズ
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * 子との状態の比較
+	 * @param i ヒープ上の位置
+	 */
+	private void fixDown(int i) {
+		int key = this.keys[i];
+		double value = this.values[key];
+		int son;
+		while ((son = i << 1) <= this.size) {
+			if (son < this.size && this.values[this.keys[son]] > this.values[this.keys[son + 1]]) {
+				son++;
+			}
+			if (value <= this.values[this.keys[son]]) {
+				break;
+			}
+			this.keys[i] = this.keys[son];
+			this.index[this.keys[i]] = i;
+			i = son;
+		}
+		this.keys[i] = key;
+		this.index[key] = i;
+	}
+
+	/**
+	 * 親との状態を確認
+	 * @param i ヒープ上の位置
+	 */
+	private void fixUp(int i) {
+		int key = this.keys[i];
+		double value = this.values[key];
+		int parent;
+		while ((parent = i >> 1) > 0) {
+			if (value >= this.values[this.keys[parent]]) {
+				break;
+			}
+			this.keys[i] = this.keys[parent];
+			this.index[this.keys[i]] = i;
+			i = parent;
+		}
+		this.keys[i] = key;
+		this.index[key] = i;
+	}
+}
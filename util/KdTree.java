@@ -0,0 +1,451 @@
+package util;
+
+/**
+ * 平面上の点に対する2次元k-d木です。
+ * 点は配列上に暗黙的な平衡木として格納し、点の削除に対応します。
+ * 削除した点は探索から除外され、部分木の生存数によって空の部分木を枝刈りします。
+ * 最近傍点の探索は、点の分布が偏っていなければO(log n)で実行できます。
+ * @author ma38su
+ */
+public class KdTree {
+
+	/**
+	 * X座標
+	 */
+	private final int[] xs;
+
+	/**
+	 * Y座標
+	 */
+	private final int[] ys;
+
+	/**
+	 * 木の配列、区間[lo, hi)の中央に部分木の根を格納します。
+	 */
+	private final int[] tree;
+
+	/**
+	 * 木の配列の順に並べたX座標
+	 */
+	private final int[] treeX;
+
+	/**
+	 * 木の配列の順に並べたY座標
+	 */
+	private final int[] treeY;
+
+	/**
+	 * 点から木の配列の位置への対応
+	 */
+	private final int[] position;
+
+	/**
+	 * 区間[lo, hi)の中央に、その部分木に残っている点の数を格納します。
+	 */
+	private final int[] alive;
+
+	/**
+	 * 削除済みフラグのビット集合（木の配列の位置）
+	 */
+	private final long[] removed;
+
+	/**
+	 * 探索中の最近傍点
+	 */
+	private int best;
+
+	/**
+	 * 探索中の最近傍点までの距離の2乗
+	 */
+	private long bestDistance;
+
+	/**
+	 * k近傍探索の結果を保持する最大ヒープ（点）
+	 */
+	private int[] heap = new int[0];
+
+	/**
+	 * k近傍探索の結果を保持する最大ヒープ（距離の2乗）
+	 */
+	private long[] heapDistance = new long[0];
+
+	/**
+	 * k近傍探索の結果の数
+	 */
+	private int heapSize;
+
+	/**
+	 * コンストラクタ
+	 * O(n log n)で木を構築します。
+	 * @param xs X座標
+	 * @param ys Y座標
+	 */
+	public KdTree(int[] xs, int[] ys) {
+		if (xs.length != ys.length) {
+			throw new IllegalArgumentException();
+		}
+		this.xs = xs;
+		this.ys = ys;
+		int n = xs.length;
+		this.tree = new int[n];
+		for (int i = 0; i < n; i++) {
+			this.tree[i] = i;
+		}
+		this.position = new int[n];
+		this.alive = new int[n];
+		this.removed = new long[(n + 63) >>> 6];
+		this.build(0, n, 0);
+		this.treeX = new int[n];
+		this.treeY = new int[n];
+		for (int i = 0; i < n; i++) {
+			this.position[this.tree[i]] = i;
+			this.treeX[i] = xs[this.tree[i]];
+			this.treeY[i] = ys[this.tree[i]];
+		}
+	}
+
+	/**
+	 * コンストラクタ
+	 * 木の構造と座標を共有し、削除の状態のみを複製します。
+	 * 同じ点の集合について、複数のスレッドで独立に点を削除しながら探索する場合に用います。
+	 * @param tree 複製するk-d木
+	 */
+	public KdTree(KdTree tree) {
+		this.xs = tree.xs;
+		this.ys = tree.ys;
+		this.tree = tree.tree;
+		this.treeX = tree.treeX;
+		this.treeY = tree.treeY;
+		this.position = tree.position;
+		this.alive = tree.alive.clone();
+		this.removed = tree.removed.clone();
+	}
+
+	/**
+	 * 区間[lo, hi)の部分木を構築します。
+	 * @param lo 区間の最小のインデックス
+	 * @param hi 区間の最大のインデックス + 1
+	 * @param depth 深さ
+	 */
+	private void build(int lo, int hi, int depth) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			this.select(lo, hi - 1, mid, (depth & 1) == 0 ? this.xs : this.ys);
+			this.alive[mid] = hi - lo;
+			this.build(lo, mid, depth + 1);
+			lo = mid + 1;
+			depth++;
+		}
+	}
+
+	/**
+	 * k番目に小さい座標の点がkの位置にくるように並べ替えます。
+	 * @param lo 区間の最小のインデックス
+	 * @param hi 区間の最大のインデックス
+	 * @param k 位置
+	 * @param key 比較する座標
+	 */
+	private void select(int lo, int hi, int k, int[] key) {
+		int[] a = this.tree;
+		while (lo < hi) {
+			int pivot = key[a[(lo + hi) >>> 1]];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (key[a[i]] < pivot) {
+					i++;
+				}
+				while (key[a[j]] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int tmp = a[i];
+					a[i] = a[j];
+					a[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * 点を削除します。
+	 * @param index 削除する点
+	 * @return 削除できればtrue、既に削除されていればfalse
+	 */
+	public boolean remove(int index) {
+		int pos = this.position[index];
+		if (this.isRemoved(pos)) {
+			return false;
+		}
+		this.removed[pos >>> 6] |= 1L << pos;
+		int lo = 0;
+		int hi = this.tree.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			this.alive[mid]--;
+			if (pos == mid) {
+				break;
+			} else if (pos < mid) {
+				hi = mid;
+			} else {
+				lo = mid + 1;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 木の配列の位置の点が削除されているか確認します。
+	 * @param pos 木の配列の位置
+	 * @return 削除されていればtrue
+	 */
+	private boolean isRemoved(int pos) {
+		return (this.removed[pos >>> 6] & (1L << pos)) != 0;
+	}
+
+	/**
+	 * 削除されていない点の数を返します。
+	 * @return 削除されていない点の数
+	 */
+	public int size() {
+		return this.tree.length == 0 ? 0 : this.alive[this.tree.length >>> 1];
+	}
+
+	/**
+	 * 木の配列の指定した位置の点を返します。
+	 * 木の配列の順に点を走査すると空間的に近い点が続くため、すべての点について探索する場合に
+	 * この順に探索すると局所性が高くなります。
+	 * @param position 木の配列の位置
+	 * @return 点
+	 */
+	public int get(int position) {
+		return this.tree[position];
+	}
+
+	/**
+	 * 点が削除されていないか確認します。
+	 * @param index 点
+	 * @return 削除されていなければtrue
+	 */
+	public boolean contains(int index) {
+		return !this.isRemoved(this.position[index]);
+	}
+
+	/**
+	 * 削除されていない点のうち、指定した座標に最も近い点を求めます。
+	 * @param x X座標
+	 * @param y Y座標
+	 * @return 最近傍点、点が残っていなければ-1
+	 */
+	public int nearest(int x, int y) {
+		this.best = -1;
+		this.bestDistance = Long.MAX_VALUE;
+		this.nearest(x, y, 0, this.tree.length, 0);
+		return this.best;
+	}
+
+	private void nearest(int x, int y, int lo, int hi, int depth) {
+		if (lo >= hi) {
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		if (this.alive[mid] == 0) {
+			return;
+		}
+		long dx = (long) this.treeX[mid] - x;
+		long dy = (long) this.treeY[mid] - y;
+		if (!this.isRemoved(mid)) {
+			long d = dx * dx + dy * dy;
+			if (d < this.bestDistance) {
+				this.bestDistance = d;
+				this.best = this.tree[mid];
+			}
+		}
+		long diff = (depth & 1) == 0 ? -dx : -dy;
+		if (diff < 0) {
+			this.nearest(x, y, lo, mid, depth + 1);
+			if (diff * diff < this.bestDistance) {
+				this.nearest(x, y, mid + 1, hi, depth + 1);
+			}
+		} else {
+			this.nearest(x, y, mid + 1, hi, depth + 1);
+			if (diff * diff < this.bestDistance) {
+				this.nearest(x, y, lo, mid, depth + 1);
+			}
+		}
+	}
+
+	/**
+	 * 削除されていない点のうち、指定した点に近いk個の点を近い順に求めます。
+	 * 指定した点自身は含みません。
+	 * @param index 点
+	 * @param k 求める点の数
+	 * @param result 結果を格納する配列
+	 * @param offset 結果を格納する配列の開始位置
+	 * @return 求まった点の数
+	 */
+	public int nearest(int index, int k, int[] result, int offset) {
+		return this.nearest(index, k, -1, result, offset);
+	}
+
+	/**
+	 * 削除されていない点のうち、指定した点に近いk個の点を近い順に求めます。
+	 * 指定した点自身は含みません。
+	 * 象限を指定した場合は、指定した点を原点とする象限に含まれる点のみを求めます。
+	 * 象限は0から3で、原点と同じ座標の点はいずれの象限にも含まれません。
+	 * @param index 点
+	 * @param k 求める点の数
+	 * @param quadrant 象限、すべての点を対象とする場合は-1
+	 * @param result 結果を格納する配列
+	 * @param offset 結果を格納する配列の開始位置
+	 * @return 求まった点の数
+	 */
+	public int nearest(int index, int k, int quadrant, int[] result, int offset) {
+		if (k <= 0) {
+			return 0;
+		}
+		if (this.heap.length < k) {
+			this.heap = new int[k];
+			this.heapDistance = new long[k];
+		}
+		this.heapSize = 0;
+		this.nearest(index, this.xs[index], this.ys[index], k, quadrant, 0, this.tree.length, 0);
+		int size = this.heapSize;
+		for (int i = size - 1; i >= 0; i--) {
+			result[offset + i] = this.heap[0];
+			this.pollHeap();
+		}
+		return size;
+	}
+
+	private void nearest(int index, int x, int y, int k, int quadrant, int lo, int hi, int depth) {
+		if (lo >= hi) {
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		if (this.alive[mid] == 0) {
+			return;
+		}
+		long dx = (long) this.treeX[mid] - x;
+		long dy = (long) this.treeY[mid] - y;
+		if (!this.isRemoved(mid) && this.tree[mid] != index) {
+			if (quadrant < 0 || KdTree.isQuadrant(quadrant, dx, dy)) {
+				long d = dx * dx + dy * dy;
+				if (this.heapSize < k) {
+					this.pushHeap(this.tree[mid], d);
+				} else if (d < this.heapDistance[0]) {
+					this.pollHeap();
+					this.pushHeap(this.tree[mid], d);
+				}
+			}
+		}
+		long diff;
+		boolean isLeft = true;
+		boolean isRight = true;
+		if ((depth & 1) == 0) {
+			diff = -dx;
+			if (quadrant >= 0) {
+				// 象限に含まれない側の部分木は探索しません。
+				isLeft = !(dx < 0 && (quadrant == 0 || quadrant == 3));
+				isRight = !(dx > 0 && (quadrant == 1 || quadrant == 2));
+			}
+		} else {
+			diff = -dy;
+			if (quadrant >= 0) {
+				isLeft = !(dy < 0 && (quadrant == 0 || quadrant == 1));
+				isRight = !(dy > 0 && (quadrant == 2 || quadrant == 3));
+			}
+		}
+		if (diff < 0) {
+			if (isLeft) {
+				this.nearest(index, x, y, k, quadrant, lo, mid, depth + 1);
+			}
+			if (isRight && (this.heapSize < k || diff * diff < this.heapDistance[0])) {
+				this.nearest(index, x, y, k, quadrant, mid + 1, hi, depth + 1);
+			}
+		} else {
+			if (isRight) {
+				this.nearest(index, x, y, k, quadrant, mid + 1, hi, depth + 1);
+			}
+			if (isLeft && (this.heapSize < k || diff * diff < this.heapDistance[0])) {
+				this.nearest(index, x, y, k, quadrant, lo, mid, depth + 1);
+			}
+		}
+	}
+
+	/**
+	 * 原点からの差分が象限に含まれるか確認します。
+	 * @param quadrant 象限
+	 * @param dx X座標の差分
+	 * @param dy Y座標の差分
+	 * @return 象限に含まれればtrue
+	 */
+	private static boolean isQuadrant(int quadrant, long dx, long dy) {
+		switch (quadrant) {
+			case 0:
+				return dx > 0 && dy >= 0;
+			case 1:
+				return dx <= 0 && dy > 0;
+			case 2:
+				return dx < 0 && dy <= 0;
+			default:
+				return dx >= 0 && dy < 0;
+		}
+	}
+
+	/**
+	 * 最大ヒープに点を加えます。
+	 * @param p 点
+	 * @param d 距離の2乗
+	 */
+	private void pushHeap(int p, long d) {
+		int index = this.heapSize++;
+		while (index > 0) {
+			int parent = (index - 1) >> 1;
+			if (this.heapDistance[parent] >= d) {
+				break;
+			}
+			this.heap[index] = this.heap[parent];
+			this.heapDistance[index] = this.heapDistance[parent];
+			index = parent;
+		}
+		this.heap[index] = p;
+		this.heapDistance[index] = d;
+	}
+
+	/**
+	 * 最大ヒープの根を削除します。
+	 */
+	private void pollHeap() {
+		int size = --this.heapSize;
+		if (size == 0) {
+			return;
+		}
+		int p = this.heap[size];
+		long d = this.heapDistance[size];
+		int index = 0;
+		int son;
+		while ((son = (index << 1) + 1) < size) {
+			if (son + 1 < size && this.heapDistance[son + 1] > this.heapDistance[son]) {
+				son++;
+			}
+			if (d >= this.heapDistance[son]) {
+				break;
+			}
+			this.heap[index] = this.heap[son];
+			this.heapDistance[index] = this.heapDistance[son];
+			index = son;
+		}
+		this.heap[index] = p;
+		this.heapDistance[index] = d;
+	}
+}
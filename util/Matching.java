@@ -0,0 +1,778 @@
+package util;
+
+/**
+ * 一般グラフの重み最大マッチングを求めるEdmondsのblossom algorithmです。
+ * 主双対法により、O(n^3)で厳密解を求めます。
+ * 重みを整数に限定することで、双対変数の更新で丸め誤差が生じないようにしています。
+ *
+ * 実装はJoris van Rantwijkによる公開ドメインの実装（mwmatching.py）にもとづきます。
+ * 辺kの端点を2kと2k + 1で表し、mate、labelendには端点を格納します。
+ * @author ma38su
+ */
+public class Matching {
+
+	/**
+	 * 頂点の数
+	 */
+	private final int n;
+
+	/**
+	 * 辺の数
+	 */
+	private final int m;
+
+	/**
+	 * 辺の始点
+	 */
+	private final int[] edgeS;
+
+	/**
+	 * 辺の終点
+	 */
+	private final int[] edgeT;
+
+	/**
+	 * 辺の重み
+	 */
+	private final long[] weight;
+
+	/**
+	 * 端点pの頂点
+	 */
+	private final int[] endpoint;
+
+	/**
+	 * 頂点から接続する辺の相手の端点
+	 */
+	private final int[][] neighbend;
+
+	/**
+	 * 頂点とマッチする端点、マッチしていなければ-1
+	 */
+	private int[] mate;
+
+	/**
+	 * 頂点またはblossomのラベル、0: なし、1: S、2: T
+	 */
+	private int[] label;
+
+	/**
+	 * ラベルを付けた辺の端点
+	 */
+	private int[] labelend;
+
+	/**
+	 * 頂点を含む最も外側のblossom
+	 */
+	private int[] inblossom;
+
+	/**
+	 * blossomの親のblossom
+	 */
+	private int[] blossomparent;
+
+	/**
+	 * blossomの子（頂点またはblossom）
+	 */
+	private int[][] blossomchilds;
+
+	/**
+	 * blossomの基点の頂点
+	 */
+	private int[] blossombase;
+
+	/**
+	 * blossomの子を接続する辺の端点
+	 */
+	private int[][] blossomendps;
+
+	/**
+	 * S頂点またはSのblossomへの最小のslackの辺
+	 */
+	private int[] bestedge;
+
+	/**
+	 * blossomから他のSのblossomへの最小のslackの辺のリスト
+	 */
+	private int[][] blossombestedges;
+
+	/**
+	 * 未使用のblossomの番号
+	 */
+	private int[] unusedblossoms;
+
+	/**
+	 * 未使用のblossomの番号の数
+	 */
+	private int unusedSize;
+
+	/**
+	 * 双対変数
+	 */
+	private long[] dualvar;
+
+	/**
+	 * slackが0で、探索に利用できる辺
+	 */
+	private boolean[] allowedge;
+
+	/**
+	 * 探索するS頂点のキュー
+	 */
+	private int[] queue;
+
+	/**
+	 * キューの要素の数
+	 */
+	private int queueSize;
+
+	/**
+	 * コンストラクタ
+	 * @param n 頂点の数
+	 * @param edgeS 辺の始点
+	 * @param edgeT 辺の終点
+	 * @param weight 辺の重み
+	 */
+	public Matching(int n, int[] edgeS, int[] edgeT, long[] weight) {
+		this.n = n;
+		this.m = edgeS.length;
+		this.edgeS = edgeS;
+		this.edgeT = edgeT;
+		this.weight = weight;
+		this.endpoint = new int[2 * this.m];
+		int[] degree = new int[n];
+		for (int k = 0; k < this.m; k++) {
+			this.endpoint[2 * k] = edgeS[k];
+			this.endpoint[2 * k + 1] = edgeT[k];
+			degree[edgeS[k]]++;
+			degree[edgeT[k]]++;
+		}
+		this.neighbend = new int[n][];
+		for (int i = 0; i < n; i++) {
+			this.neighbend[i] = new int[degree[i]];
+			degree[i] = 0;
+		}
+		for (int k = 0; k < this.m; k++) {
+			this.neighbend[edgeS[k]][degree[edgeS[k]]++] = 2 * k + 1;
+			this.neighbend[edgeT[k]][degree[edgeT[k]]++] = 2 * k;
+		}
+	}
+
+	/**
+	 * 重み最大マッチングを求めます。
+	 * @param maxCardinality trueであれば、要素数が最大のマッチングのうち重み最大のマッチングを求める
+	 * @return 各頂点とマッチする頂点、マッチしていなければ-1
+	 */
+	public int[] solve(boolean maxCardinality) {
+		int n = this.n;
+		long maxWeight = 0;
+		for (long w : this.weight) {
+			maxWeight = Math.max(maxWeight, w);
+		}
+		this.mate = new int[n];
+		this.label = new int[2 * n];
+		this.labelend = new int[2 * n];
+		this.inblossom = new int[n];
+		this.blossomparent = new int[2 * n];
+		this.blossomchilds = new int[2 * n][];
+		this.blossombase = new int[2 * n];
+		this.blossomendps = new int[2 * n][];
+		this.bestedge = new int[2 * n];
+		this.blossombestedges = new int[2 * n][];
+		this.unusedblossoms = new int[n];
+		this.dualvar = new long[2 * n];
+		this.allowedge = new boolean[this.m];
+		this.queue = new int[n];
+		for (int i = 0; i < n; i++) {
+			this.mate[i] = -1;
+			this.inblossom[i] = i;
+			this.blossombase[i] = i;
+			this.blossombase[n + i] = -1;
+			this.unusedblossoms[i] = n + i;
+			this.dualvar[i] = maxWeight;
+		}
+		this.unusedSize = n;
+		for (int i = 0; i < 2 * n; i++) {
+			this.labelend[i] = -1;
+			this.blossomparent[i] = -1;
+			this.bestedge[i] = -1;
+		}
+
+		for (int stage = 0; stage < n; stage++) {
+			for (int i = 0; i < 2 * n; i++) {
+				this.label[i] = 0;
+				this.bestedge[i] = -1;
+			}
+			for (int i = n; i < 2 * n; i++) {
+				this.blossombestedges[i] = null;
+			}
+			for (int k = 0; k < this.m; k++) {
+				this.allowedge[k] = false;
+			}
+			this.queueSize = 0;
+			for (int v = 0; v < n; v++) {
+				if (this.mate[v] == -1 && this.label[this.inblossom[v]] == 0) {
+					this.assignLabel(v, 1, -1);
+				}
+			}
+			boolean augmented = false;
+			while (true) {
+				while (this.queueSize > 0 && !augmented) {
+					int v = this.queue[--this.queueSize];
+					for (int p : this.neighbend[v]) {
+						int k = p >> 1;
+						int w = this.endpoint[p];
+						if (this.inblossom[v] == this.inblossom[w]) {
+							continue;
+						}
+						long kslack = 0;
+						if (!this.allowedge[k]) {
+							kslack = this.slack(k);
+							if (kslack <= 0) {
+								this.allowedge[k] = true;
+							}
+						}
+						if (this.allowedge[k]) {
+							if (this.label[this.inblossom[w]] == 0) {
+								this.assignLabel(w, 2, p ^ 1);
+							} else if (this.label[this.inblossom[w]] == 1) {
+								int base = this.scanBlossom(v, w);
+								if (base >= 0) {
+									this.addBlossom(base, k);
+								} else {
+									this.augmentMatching(k);
+									augmented = true;
+									break;
+								}
+							} else if (this.label[w] == 0) {
+								this.label[w] = 2;
+								this.labelend[w] = p ^ 1;
+							}
+						} else if (this.label[this.inblossom[w]] == 1) {
+							int b = this.inblossom[v];
+							if (this.bestedge[b] == -1 || kslack < this.slack(this.bestedge[b])) {
+								this.bestedge[b] = k;
+							}
+						} else if (this.label[w] == 0) {
+							if (this.bestedge[w] == -1 || kslack < this.slack(this.bestedge[w])) {
+								this.bestedge[w] = k;
+							}
+						}
+					}
+				}
+				if (augmented) {
+					break;
+				}
+
+				// 双対変数の更新量を求めます。
+				int deltatype = -1;
+				long delta = 0;
+				int deltaedge = -1;
+				int deltablossom = -1;
+				if (!maxCardinality) {
+					deltatype = 1;
+					delta = Long.MAX_VALUE;
+					for (int v = 0; v < n; v++) {
+						delta = Math.min(delta, this.dualvar[v]);
+					}
+				}
+				for (int v = 0; v < n; v++) {
+					if (this.label[this.inblossom[v]] == 0 && this.bestedge[v] != -1) {
+						long d = this.slack(this.bestedge[v]);
+						if (deltatype == -1 || d < delta) {
+							delta = d;
+							deltatype = 2;
+							deltaedge = this.bestedge[v];
+						}
+					}
+				}
+				for (int b = 0; b < 2 * n; b++) {
+					if (this.blossomparent[b] == -1 && this.label[b] == 1 && this.bestedge[b] != -1) {
+						long d = this.slack(this.bestedge[b]) / 2;
+						if (deltatype == -1 || d < delta) {
+							delta = d;
+							deltatype = 3;
+							deltaedge = this.bestedge[b];
+						}
+					}
+				}
+				for (int b = n; b < 2 * n; b++) {
+					if (this.blossombase[b] >= 0 && this.blossomparent[b] == -1 && this.label[b] == 2
+							&& (deltatype == -1 || this.dualvar[b] < delta)) {
+						delta = this.dualvar[b];
+						deltatype = 4;
+						deltablossom = b;
+					}
+				}
+				if (deltatype == -1) {
+					deltatype = 1;
+					delta = Long.MAX_VALUE;
+					for (int v = 0; v < n; v++) {
+						delta = Math.min(delta, this.dualvar[v]);
+					}
+					delta = Math.max(0, delta);
+				}
+
+				// 双対変数を更新します。
+				for (int v = 0; v < n; v++) {
+					if (this.label[this.inblossom[v]] == 1) {
+						this.dualvar[v] -= delta;
+					} else if (this.label[this.inblossom[v]] == 2) {
+						this.dualvar[v] += delta;
+					}
+				}
+				for (int b = n; b < 2 * n; b++) {
+					if (this.blossombase[b] >= 0 && this.blossomparent[b] == -1) {
+						if (this.label[b] == 1) {
+							this.dualvar[b] += delta;
+						} else if (this.label[b] == 2) {
+							this.dualvar[b] -= delta;
+						}
+					}
+				}
+
+				if (deltatype == 1) {
+					break;
+				} else if (deltatype == 2) {
+					this.allowedge[deltaedge] = true;
+					int i = this.edgeS[deltaedge];
+					if (this.label[this.inblossom[i]] == 0) {
+						i = this.edgeT[deltaedge];
+					}
+					this.queue[this.queueSize++] = i;
+				} else if (deltatype == 3) {
+					this.allowedge[deltaedge] = true;
+					this.queue[this.queueSize++] = this.edgeS[deltaedge];
+				} else if (deltatype == 4) {
+					this.expandBlossom(deltablossom, false);
+				}
+			}
+			if (!augmented) {
+				break;
+			}
+			for (int b = n; b < 2 * n; b++) {
+				if (this.blossomparent[b] == -1 && this.blossombase[b] >= 0 && this.label[b] == 1 && this.dualvar[b] == 0) {
+					this.expandBlossom(b, true);
+				}
+			}
+		}
+
+		int[] result = new int[n];
+		for (int v = 0; v < n; v++) {
+			result[v] = this.mate[v] >= 0 ? this.endpoint[this.mate[v]] : -1;
+		}
+		return result;
+	}
+
+	/**
+	 * 辺のslackを求めます。
+	 * @param k 辺
+	 * @return slack
+	 */
+	private long slack(int k) {
+		return this.dualvar[this.edgeS[k]] + this.dualvar[this.edgeT[k]] - 2 * this.weight[k];
+	}
+
+	/**
+	 * blossomに含まれる頂点を求めます。
+	 * @param b blossom
+	 * @return blossomに含まれる頂点
+	 */
+	private int[] blossomLeaves(int b) {
+		IntList leaves = new IntList();
+		this.blossomLeaves(b, leaves);
+		return leaves.toArray();
+	}
+
+	private void blossomLeaves(int b, IntList leaves) {
+		if (b < this.n) {
+			leaves.add(b);
+		} else {
+			for (int t : this.blossomchilds[b]) {
+				this.blossomLeaves(t, leaves);
+			}
+		}
+	}
+
+	/**
+	 * 頂点wを含むblossomにラベルtを付けます。
+	 * @param w 頂点
+	 * @param t ラベル
+	 * @param p ラベルを付けた辺の端点
+	 */
+	private void assignLabel(int w, int t, int p) {
+		int b = this.inblossom[w];
+		this.label[w] = t;
+		this.label[b] = t;
+		this.labelend[w] = p;
+		this.labelend[b] = p;
+		this.bestedge[w] = -1;
+		this.bestedge[b] = -1;
+		if (t == 1) {
+			for (int v : this.blossomLeaves(b)) {
+				this.queue[this.queueSize++] = v;
+			}
+		} else if (t == 2) {
+			int base = this.blossombase[b];
+			this.assignLabel(this.endpoint[this.mate[base]], 1, this.mate[base] ^ 1);
+		}
+	}
+
+	/**
+	 * 頂点v、wから交互路をたどり、新しいblossomの基点または増加路を求めます。
+	 * @param v 頂点
+	 * @param w 頂点
+	 * @return blossomの基点、増加路であれば-1
+	 */
+	private int scanBlossom(int v, int w) {
+		IntList path = new IntList();
+		int base = -1;
+		while (v != -1 || w != -1) {
+			int b = this.inblossom[v];
+			if ((this.label[b] & 4) != 0) {
+				base = this.blossombase[b];
+				break;
+			}
+			path.add(b);
+			this.label[b] = 5;
+			if (this.labelend[b] == -1) {
+				v = -1;
+			} else {
+				v = this.endpoint[this.labelend[b]];
+				b = this.inblossom[v];
+				v = this.endpoint[this.labelend[b]];
+			}
+			if (w != -1) {
+				int tmp = v;
+				v = w;
+				w = tmp;
+			}
+		}
+		for (int i = 0; i < path.size(); i++) {
+			this.label[path.get(i)] = 1;
+		}
+		return base;
+	}
+
+	/**
+	 * 辺kを含む閉路から新しいblossomを作ります。
+	 * @param base blossomの基点
+	 * @param k 辺
+	 */
+	private void addBlossom(int base, int k) {
+		int v = this.edgeS[k];
+		int w = this.edgeT[k];
+		int bb = this.inblossom[base];
+		int bv = this.inblossom[v];
+		int bw = this.inblossom[w];
+		int b = this.unusedblossoms[--this.unusedSize];
+		this.blossombase[b] = base;
+		this.blossomparent[b] = -1;
+		this.blossomparent[bb] = b;
+		IntList path = new IntList();
+		IntList endps = new IntList();
+		while (bv != bb) {
+			this.blossomparent[bv] = b;
+			path.add(bv);
+			endps.add(this.labelend[bv]);
+			v = this.endpoint[this.labelend[bv]];
+			bv = this.inblossom[v];
+		}
+		path.add(bb);
+		path.reverse();
+		endps.reverse();
+		endps.add(2 * k);
+		while (bw != bb) {
+			this.blossomparent[bw] = b;
+			path.add(bw);
+			endps.add(this.labelend[bw] ^ 1);
+			w = this.endpoint[this.labelend[bw]];
+			bw = this.inblossom[w];
+		}
+		this.blossomchilds[b] = path.toArray();
+		this.blossomendps[b] = endps.toArray();
+		this.label[b] = 1;
+		this.labelend[b] = this.labelend[bb];
+		this.dualvar[b] = 0;
+		for (int leaf : this.blossomLeaves(b)) {
+			if (this.label[this.inblossom[leaf]] == 2) {
+				this.queue[this.queueSize++] = leaf;
+			}
+			this.inblossom[leaf] = b;
+		}
+		int[] bestedgeto = new int[2 * this.n];
+		for (int i = 0; i < bestedgeto.length; i++) {
+			bestedgeto[i] = -1;
+		}
+		for (int child : this.blossomchilds[b]) {
+			if (this.blossombestedges[child] == null) {
+				for (int leaf : this.blossomLeaves(child)) {
+					for (int p : this.neighbend[leaf]) {
+						this.updateBestEdge(b, p >> 1, bestedgeto);
+					}
+				}
+			} else {
+				for (int e : this.blossombestedges[child]) {
+					this.updateBestEdge(b, e, bestedgeto);
+				}
+			}
+			this.blossombestedges[child] = null;
+			this.bestedge[child] = -1;
+		}
+		IntList best = new IntList();
+		for (int e : bestedgeto) {
+			if (e != -1) {
+				best.add(e);
+			}
+		}
+		this.blossombestedges[b] = best.toArray();
+		this.bestedge[b] = -1;
+		for (int e : this.blossombestedges[b]) {
+			if (this.bestedge[b] == -1 || this.slack(e) < this.slack(this.bestedge[b])) {
+				this.bestedge[b] = e;
+			}
+		}
+	}
+
+	/**
+	 * blossomから他のSのblossomへの最小のslackの辺を更新します。
+	 * @param b blossom
+	 * @param k 辺
+	 * @param bestedgeto blossomごとの最小のslackの辺
+	 */
+	private void updateBestEdge(int b, int k, int[] bestedgeto) {
+		int j = this.edgeT[k];
+		if (this.inblossom[j] == b) {
+			j = this.edgeS[k];
+		}
+		int bj = this.inblossom[j];
+		if (bj != b && this.label[bj] == 1 && (bestedgeto[bj] == -1 || this.slack(k) < this.slack(bestedgeto[bj]))) {
+			bestedgeto[bj] = k;
+		}
+	}
+
+	/**
+	 * blossomを展開します。
+	 * @param b blossom
+	 * @param endstage 段階の終了時であればtrue
+	 */
+	private void expandBlossom(int b, boolean endstage) {
+		int[] childs = this.blossomchilds[b];
+		for (int s : childs) {
+			this.blossomparent[s] = -1;
+			if (s < this.n) {
+				this.inblossom[s] = s;
+			} else if (endstage && this.dualvar[s] == 0) {
+				this.expandBlossom(s, endstage);
+			} else {
+				for (int v : this.blossomLeaves(s)) {
+					this.inblossom[v] = s;
+				}
+			}
+		}
+		if (!endstage && this.label[b] == 2) {
+			int[] endps = this.blossomendps[b];
+			int length = childs.length;
+			int entrychild = this.inblossom[this.endpoint[this.labelend[b] ^ 1]];
+			int j = Matching.indexOf(childs, entrychild);
+			int jstep;
+			int endptrick;
+			if ((j & 1) != 0) {
+				j -= length;
+				jstep = 1;
+				endptrick = 0;
+			} else {
+				jstep = -1;
+				endptrick = 1;
+			}
+			int p = this.labelend[b];
+			while (j != 0) {
+				this.label[this.endpoint[p ^ 1]] = 0;
+				this.label[this.endpoint[endps[Matching.mod(j - endptrick, length)] ^ endptrick ^ 1]] = 0;
+				this.assignLabel(this.endpoint[p ^ 1], 2, p);
+				this.allowedge[endps[Matching.mod(j - endptrick, length)] >> 1] = true;
+				j += jstep;
+				p = endps[Matching.mod(j - endptrick, length)] ^ endptrick;
+				this.allowedge[p >> 1] = true;
+				j += jstep;
+			}
+			int bv = childs[Matching.mod(j, length)];
+			this.label[this.endpoint[p ^ 1]] = 2;
+			this.label[bv] = 2;
+			this.labelend[this.endpoint[p ^ 1]] = p;
+			this.labelend[bv] = p;
+			this.bestedge[bv] = -1;
+			j += jstep;
+			while (childs[Matching.mod(j, length)] != entrychild) {
+				bv = childs[Matching.mod(j, length)];
+				if (this.label[bv] == 1) {
+					j += jstep;
+					continue;
+				}
+				int v = -1;
+				for (int leaf : this.blossomLeaves(bv)) {
+					v = leaf;
+					if (this.label[leaf] != 0) {
+						break;
+					}
+				}
+				if (this.label[v] != 0) {
+					this.label[v] = 0;
+					this.label[this.endpoint[this.mate[this.blossombase[bv]]]] = 0;
+					this.assignLabel(v, 2, this.labelend[v]);
+				}
+				j += jstep;
+			}
+		}
+		this.label[b] = -1;
+		this.labelend[b] = -1;
+		this.blossomchilds[b] = null;
+		this.blossomendps[b] = null;
+		this.blossombase[b] = -1;
+		this.blossombestedges[b] = null;
+		this.bestedge[b] = -1;
+		this.unusedblossoms[this.unusedSize++] = b;
+	}
+
+	/**
+	 * blossomの基点が頂点vになるように、blossom内のマッチングを入れ替えます。
+	 * @param b blossom
+	 * @param v 頂点
+	 */
+	private void augmentBlossom(int b, int v) {
+		int t = v;
+		while (this.blossomparent[t] != b) {
+			t = this.blossomparent[t];
+		}
+		if (t >= this.n) {
+			this.augmentBlossom(t, v);
+		}
+		int[] childs = this.blossomchilds[b];
+		int[] endps = this.blossomendps[b];
+		int length = childs.length;
+		int i = Matching.indexOf(childs, t);
+		int j = i;
+		int jstep;
+		int endptrick;
+		if ((i & 1) != 0) {
+			j -= length;
+			jstep = 1;
+			endptrick = 0;
+		} else {
+			jstep = -1;
+			endptrick = 1;
+		}
+		while (j != 0) {
+			j += jstep;
+			t = childs[Matching.mod(j, length)];
+			int p = endps[Matching.mod(j - endptrick, length)] ^ endptrick;
+			if (t >= this.n) {
+				this.augmentBlossom(t, this.endpoint[p]);
+			}
+			j += jstep;
+			t = childs[Matching.mod(j, length)];
+			if (t >= this.n) {
+				this.augmentBlossom(t, this.endpoint[p ^ 1]);
+			}
+			this.mate[this.endpoint[p]] = p ^ 1;
+			this.mate[this.endpoint[p ^ 1]] = p;
+		}
+		int[] rotatedChilds = new int[length];
+		int[] rotatedEndps = new int[length];
+		for (int l = 0; l < length; l++) {
+			rotatedChilds[l] = childs[(i + l) % length];
+			rotatedEndps[l] = endps[(i + l) % length];
+		}
+		this.blossomchilds[b] = rotatedChilds;
+		this.blossomendps[b] = rotatedEndps;
+		this.blossombase[b] = this.blossombase[rotatedChilds[0]];
+	}
+
+	/**
+	 * 辺kを通る増加路によってマッチングを増やします。
+	 * @param k 辺
+	 */
+	private void augmentMatching(int k) {
+		for (int side = 0; side < 2; side++) {
+			int s = side == 0 ? this.edgeS[k] : this.edgeT[k];
+			int p = side == 0 ? 2 * k + 1 : 2 * k;
+			while (true) {
+				int bs = this.inblossom[s];
+				if (bs >= this.n) {
+					this.augmentBlossom(bs, s);
+				}
+				this.mate[s] = p;
+				if (this.labelend[bs] == -1) {
+					break;
+				}
+				int t = this.endpoint[this.labelend[bs]];
+				int bt = this.inblossom[t];
+				s = this.endpoint[this.labelend[bt]];
+				int j = this.endpoint[this.labelend[bt] ^ 1];
+				if (bt >= this.n) {
+					this.augmentBlossom(bt, j);
+				}
+				this.mate[j] = this.labelend[bt];
+				p = this.labelend[bt] ^ 1;
+			}
+		}
+	}
+
+	private static int indexOf(int[] array, int value) {
+		for (int i = 0; i < array.length; i++) {
+			if (array[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 負のインデックスを末尾からのインデックスとして扱います。
+	 * @param i インデックス
+	 * @param length 配列の長さ
+	 * @return 0以上length未満のインデックス
+	 */
+	private static int mod(int i, int length) {
+		return i < 0 ? i + length : i;
+	}
+
+	/**
+	 * 可変長のint配列
+	 */
+	private static class IntList {
+		private int[] values = new int[8];
+		private int size;
+
+		void add(int value) {
+			if (this.size == this.values.length) {
+				int[] tmp = new int[this.size * 2];
+				System.arraycopy(this.values, 0, tmp, 0, this.size);
+				this.values = tmp;
+			}
+			this.values[this.size++] = value;
+		}
+
+		int get(int i) {
+			return this.values[i];
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		void reverse() {
+			for (int i = 0, j = this.size - 1; i < j; i++, j--) {
+				int tmp = this.values[i];
+				this.values[i] = this.values[j];
+				this.values[j] = tmp;
+			}
+		}
+
+		int[] toArray() {
+			int[] array = new int[this.size];
+			System.arraycopy(this.values, 0, array, 0, this.size);
+			return array;
+		}
+	}
+}
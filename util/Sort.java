@@ -0,0 +1,106 @@
+package util;
+
+/**
+ * プリミティブ型の配列のためのソートです。
+ * キーの配列と同時に値の配列を並べ替えるため、オブジェクトを生成せずにソートできます。
+ * @author ma38su
+ */
+public class Sort {
+
+	/**
+	 * 挿入ソートに切り替える要素数
+	 */
+	private static final int INSERTION_THRESHOLD = 16;
+
+	private Sort() {
+	}
+
+	/**
+	 * キーの昇順にキーと値を並べ替えます。
+	 * 非負のdoubleは{@link Double#doubleToLongBits(double)}の値の順序が元の値の順序と一致するため、
+	 * 非負の実数をキーとする場合にも利用できます。
+	 * @param keys キー
+	 * @param values 値
+	 */
+	public static void sort(long[] keys, int[] values) {
+		if (keys.length != values.length) {
+			throw new IllegalArgumentException();
+		}
+		Sort.sort(keys, values, 0, keys.length - 1);
+	}
+
+	/**
+	 * 区間[lo, hi]をキーの昇順に並べ替えます。
+	 * @param keys キー
+	 * @param values 値
+	 * @param lo 区間の最小のインデックス
+	 * @param hi 区間の最大のインデックス
+	 */
+	private static void sort(long[] keys, int[] values, int lo, int hi) {
+		while (hi - lo > INSERTION_THRESHOLD) {
+			int mid = (lo + hi) >>> 1;
+			// 3点の中央値をピボットとします。
+			if (keys[mid] < keys[lo]) {
+				Sort.swap(keys, values, mid, lo);
+			}
+			if (keys[hi] < keys[lo]) {
+				Sort.swap(keys, values, hi, lo);
+			}
+			if (keys[hi] < keys[mid]) {
+				Sort.swap(keys, values, hi, mid);
+			}
+			long pivot = keys[mid];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (keys[i] < pivot) {
+					i++;
+				}
+				while (keys[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					Sort.swap(keys, values, i, j);
+					i++;
+					j--;
+				}
+			}
+			// 小さい区間を再帰し、大きい区間はループで処理します。
+			if (j - lo < hi - i) {
+				Sort.sort(keys, values, lo, j);
+				lo = i;
+			} else {
+				Sort.sort(keys, values, i, hi);
+				hi = j;
+			}
+		}
+		for (int i = lo + 1; i <= hi; i++) {
+			long key = keys[i];
+			int value = values[i];
+			int j = i - 1;
+			while (j >= lo && keys[j] > key) {
+				keys[j + 1] = keys[j];
+				values[j + 1] = values[j];
+				j--;
+			}
+			keys[j + 1] = key;
+			values[j + 1] = value;
+		}
+	}
+
+	/**
+	 * 要素を交換します。
+	 * @param keys キー
+	 * @param values 値
+	 * @param i インデックス
+	 * @param j インデックス
+	 */
+	private static void swap(long[] keys, int[] values, int i, int j) {
+		long key = keys[i];
+		keys[i] = keys[j];
+		keys[j] = key;
+		int value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+}
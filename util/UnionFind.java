@@ -0,0 +1,84 @@
+package util;
+
+/**
+ * 0からn - 1までの整数の素集合を管理するUnion-Findです。
+ * 経路圧縮と、サイズによる併合を行います。
+ * @author ma38su
+ */
+public class UnionFind {
+
+	/**
+	 * 親、根であれば集合のサイズの負数
+	 */
+	private final int[] parent;
+
+	/**
+	 * コンストラクタ
+	 * @param n 要素の数
+	 */
+	public UnionFind(int n) {
+		this.parent = new int[n];
+		for (int i = 0; i < n; i++) {
+			this.parent[i] = -1;
+		}
+	}
+
+	/**
+	 * 要素の属する集合の代表を返します。
+	 * @param x 要素
+	 * @return 集合の代表
+	 */
+	public int find(int x) {
+		int root = x;
+		while (this.parent[root] >= 0) {
+			root = this.parent[root];
+		}
+		while (this.parent[x] >= 0) {
+			int next = this.parent[x];
+			this.parent[x] = root;
+			x = next;
+		}
+		return root;
+	}
+
+	/**
+	 * 2つの要素の属する集合を併合します。
+	 * @param x 要素
+	 * @param y 要素
+	 * @return 異なる集合を併合すればtrue、既に同じ集合であればfalse
+	 */
+	public boolean union(int x, int y) {
+		x = this.find(x);
+		y = this.find(y);
+		if (x == y) {
+			return false;
+		}
+		if (this.parent[x] > this.parent[y]) {
+			int tmp = x;
+			x = y;
+			y = tmp;
+		}
+		this.parent[x] += this.parent[y];
+		this.parent[y] = x;
+		return true;
+	}
+
+	/**
+	 * 2つの要素が同じ集合に属するか確認します。
+	 * @param x 要素
+	 * @param y 要素
+	 * @return 同じ集合に属していればtrue
+	 */
+	public boolean isSame(int x, int y) {
+		return this.find(x) == this.find(y);
+	}
+
+	/**
+	 * 要素の属する集合のサイズを返します。
+	 * @param x 要素
+	 * @return 集合のサイズ
+	 */
+	public int size(int x) {
+		return -this.parent[this.find(x)];
+	}
+}